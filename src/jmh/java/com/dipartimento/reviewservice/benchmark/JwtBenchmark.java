@@ -0,0 +1,61 @@
+package com.dipartimento.reviewservice.benchmark;
+
+import com.dipartimento.reviewservice.security.AuthenticatedUser;
+import com.dipartimento.reviewservice.security.util.JwtUtil;
+import com.dipartimento.reviewservice.support.TestTokens;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifica dei JWT: JwtUtil con la cache dei claims (il caso di ogni richiesta dopo la prima con lo stesso token),
+ * la verifica HMAC completa senza cache e il rifiuto di un token con la firma alterata.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(TestTokens.KEY).build();
+
+    private String token;
+    private String tampered;
+
+    @Setup
+    public void setUp() {
+        token = TestTokens.token(1, "USER");
+        char last = token.charAt(token.length() - 1);
+        tampered = token.substring(0, token.length() - 1) + (last == 'A' ? 'B' : 'A');
+        JwtUtil.extractAuthenticatedUser(token);
+    }
+
+    @Benchmark
+    public AuthenticatedUser extractUserCached() {
+        return JwtUtil.extractAuthenticatedUser(token);
+    }
+
+    @Benchmark
+    public Claims parseAndVerify() {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public boolean rejectTamperedSignature() {
+        return JwtUtil.validateToken(tampered);
+    }
+}
@@ -0,0 +1,136 @@
+package com.dipartimento.reviewservice.benchmark;
+
+import com.dipartimento.reviewservice.ReviewServiceApplication;
+import com.dipartimento.reviewservice.model.Review;
+import com.dipartimento.reviewservice.repository.ReviewRepository;
+import com.dipartimento.reviewservice.support.DownstreamStub;
+import com.dipartimento.reviewservice.support.TestTokens;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Percorsi di ReviewController end-to-end in-process: l'applicazione gira sul profilo test (H2, Tomcat su una
+ * porta libera) con Auth, Event e Booking service finti, e le richieste passano da HTTP come in produzione.
+ * Misura il costo del servizio stesso: i servizi a valle rispondono subito e gli eventi finiscono in EventCache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReviewControllerBenchmark {
+
+    private static final long EVENT_ID = 700_000L;
+    private static final long ORGANIZER_ID = 700_001L;
+    private static final long USER_ID = 700_002L;
+    private static final int EVENT_REVIEWS = 100;
+
+    private DownstreamStub stub;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private String bearer;
+    private String etag;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        stub = DownstreamStub.start();
+        stub.event(EVENT_ID, ORGANIZER_ID, true);
+        stub.book(USER_ID, EVENT_ID);
+
+        context = new SpringApplicationBuilder(ReviewServiceApplication.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--review.downstream.auth.base-url=" + stub.url(),
+                        "--review.downstream.event.base-url=" + stub.url(),
+                        "--review.downstream.booking.base-url=" + stub.url());
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        List<Review> reviews = new ArrayList<>(EVENT_REVIEWS);
+        for (int i = 0; i < EVENT_REVIEWS; i++) {
+            Review review = new Review();
+            review.setEventId(EVENT_ID);
+            review.setUserId(800_000L + i);
+            review.setRating((i % 5) + 1);
+            review.setComment("Recensione " + i);
+            reviews.add(review);
+        }
+        context.getBean(ReviewRepository.class).saveAll(reviews);
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        bearer = "Bearer " + TestTokens.token("utente" + USER_ID, USER_ID, "USER", new Date(System.currentTimeMillis() + 86_400_000));
+
+        // La prima POST crea la recensione dell'utente, le successive la sostituiscono
+        expect(createReview(), 201);
+        etag = eventReviews().headers().firstValue("ETag").orElseThrow();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public HttpResponse<String> createReview() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/reviews"))
+                .header("Authorization", bearer)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"eventId\":" + EVENT_ID + ",\"rating\":4,\"comment\":\"Bello\"}")));
+    }
+
+    @Benchmark
+    public HttpResponse<String> eventReviews() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/reviews/event/" + EVENT_ID))
+                .header("Authorization", bearer)
+                .GET());
+    }
+
+    @Benchmark
+    public HttpResponse<String> eventReviewsNotModified() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/reviews/event/" + EVENT_ID))
+                .header("Authorization", bearer)
+                .header("If-None-Match", etag)
+                .GET());
+    }
+
+    @Benchmark
+    public HttpResponse<String> ratingSummary() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/reviews/event/" + EVENT_ID + "/summary")).GET());
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void expect(HttpResponse<String> response, int status) {
+        if (response.statusCode() != status) {
+            throw new IllegalStateException("Atteso " + status + ", ricevuto " + response.statusCode() + ": " + response.body());
+        }
+    }
+}
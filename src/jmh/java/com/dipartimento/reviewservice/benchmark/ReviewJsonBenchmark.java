@@ -0,0 +1,95 @@
+package com.dipartimento.reviewservice.benchmark;
+
+import com.dipartimento.reviewservice.dto.ReviewDTO;
+import com.dipartimento.reviewservice.dto.ReviewView;
+import com.dipartimento.reviewservice.model.Review;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializzazione JSON delle liste di recensioni come le scrive il controller (entità Review, proiezioni
+ * ReviewView) per liste di dimensione crescente, e lettura del corpo di una POST (ReviewDTO).
+ * ObjectMapper costruito come quello di Spring Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReviewJsonBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    private int size;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private List<Review> reviews;
+    private List<ReviewView> views;
+    private List<ReviewDTO> dtos;
+    private byte[] dtoJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        reviews = new ArrayList<>(size);
+        views = new ArrayList<>(size);
+        dtos = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            long id = i + 1;
+            String comment = "Commento numero " + id + ", evento ben organizzato";
+            Review review = new Review();
+            review.setId(id);
+            review.setEventId(42L);
+            review.setUserId(1_000 + id);
+            review.setRating((i % 5) + 1);
+            review.setComment(comment);
+            reviews.add(review);
+            views.add(new ReviewView(id, 42L, 1_000 + id, (i % 5) + 1, comment));
+
+            ReviewDTO dto = new ReviewDTO();
+            dto.setEventId(42L);
+            dto.setUserId(1_000 + id);
+            dto.setRating((i % 5) + 1);
+            dto.setComment(comment);
+            dtos.add(dto);
+        }
+        dtoJson = objectMapper.writeValueAsBytes(dtos.get(0));
+    }
+
+    @Benchmark
+    public byte[] serializeReviews() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(reviews);
+    }
+
+    @Benchmark
+    public byte[] serializeViews() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(views);
+    }
+
+    @Benchmark
+    public byte[] serializeDtos() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public ReviewDTO deserializeDto() throws IOException {
+        return objectMapper.readValue(dtoJson, ReviewDTO.class);
+    }
+}
@@ -1,13 +1,78 @@
 package com.dipartimento.reviewservice.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
+@EnableConfigurationProperties(DownstreamProperties.class)
 public class AppConfig {
+
+    @Bean
+    public HttpClientPools httpClientPools(MeterRegistry meterRegistry) {
+        return new HttpClientPools(meterRegistry);
+    }
+
+    @Bean
+    public RestTemplate authRestTemplate(DownstreamProperties properties, HttpClientPools pools, ObservationRegistry observations) {
+        return pooledRestTemplate("auth", properties.getAuth(), pools, observations);
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate eventRestTemplate(DownstreamProperties properties, HttpClientPools pools, ObservationRegistry observations) {
+        return pooledRestTemplate("event", properties.getEvent(), pools, observations);
+    }
+
+    @Bean
+    public RestTemplate bookingRestTemplate(DownstreamProperties properties, HttpClientPools pools, ObservationRegistry observations) {
+        return pooledRestTemplate("booking", properties.getBooking(), pools, observations);
+    }
+
+    /**
+     * RestTemplate con pool keep-alive dedicato e timeout di connessione, lettura e acquisizione:
+     * un servizio lento esaurisce al massimo il proprio pool, non i thread di Tomcat.
+     * Ogni chiamata è osservata: span figlio della richiesta con traceparent W3C in uscita e timer http.client.requests.
+     */
+    private static RestTemplate pooledRestTemplate(String name, DownstreamProperties.Client settings, HttpClientPools pools,
+                                                   ObservationRegistry observations) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(settings.getMaxConnections())
+                .setMaxConnPerRoute(settings.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(settings.getConnectTimeout().toMillis()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(settings.getReadTimeout().toMillis()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        CloseableHttpClient client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(settings.getAcquireTimeout().toMillis()))
+                        .setResponseTimeout(Timeout.ofMilliseconds(settings.getReadTimeout().toMillis()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(settings.getIdleTimeout().toMillis()))
+                // Niente retry del client (di default ripete 503 e 429 dopo 1s): i guasti li gestisce
+                // DownstreamGuard, e un retry nascosto tiene occupati thread e permessi del bulkhead
+                .disableAutomaticRetries()
+                .build();
+
+        pools.register(name, connectionManager, client);
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(client));
+        restTemplate.setObservationRegistry(observations);
+        return restTemplate;
     }
 }
@@ -0,0 +1,113 @@
+package com.dipartimento.reviewservice.config;
+
+import com.dipartimento.reviewservice.service.resilience.FallbackPolicy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Indirizzi e impostazioni del client HTTP per ciascun servizio a valle (review.downstream.*).
+ */
+@ConfigurationProperties(prefix = "review.downstream")
+public class DownstreamProperties {
+
+    private Client auth = new Client("http://localhost:8080");
+    private Client event = new Client("http://localhost:8081");
+    private Client booking = new Client("http://localhost:8083");
+
+    public Client getAuth() { return auth; }
+    public void setAuth(Client auth) { this.auth = auth; }
+
+    public Client getEvent() { return event; }
+    public void setEvent(Client event) { this.event = event; }
+
+    public Client getBooking() { return booking; }
+    public void setBooking(Client booking) { this.booking = booking; }
+
+    public static class Client {
+        private String baseUrl;
+        // tempo massimo per aprire la connessione TCP
+        private Duration connectTimeout = Duration.ofMillis(500);
+        // tempo massimo di attesa della risposta (socket timeout)
+        private Duration readTimeout = Duration.ofSeconds(2);
+        // tempo massimo di attesa per ottenere una connessione libera dal pool
+        private Duration acquireTimeout = Duration.ofMillis(200);
+        private int maxConnections = 50;
+        private int maxConnectionsPerRoute = 50;
+        // connessioni keep-alive inattive oltre questo tempo vengono chiuse
+        private Duration idleTimeout = Duration.ofSeconds(30);
+        private Resilience resilience = new Resilience();
+
+        public Client() {}
+
+        public Client(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        public String getBaseUrl() { return baseUrl; }
+        public void setBaseUrl(String baseUrl) { this.baseUrl = baseUrl; }
+
+        public Duration getConnectTimeout() { return connectTimeout; }
+        public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+
+        public Duration getReadTimeout() { return readTimeout; }
+        public void setReadTimeout(Duration readTimeout) { this.readTimeout = readTimeout; }
+
+        public Duration getAcquireTimeout() { return acquireTimeout; }
+        public void setAcquireTimeout(Duration acquireTimeout) { this.acquireTimeout = acquireTimeout; }
+
+        public int getMaxConnections() { return maxConnections; }
+        public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+
+        public int getMaxConnectionsPerRoute() { return maxConnectionsPerRoute; }
+        public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) { this.maxConnectionsPerRoute = maxConnectionsPerRoute; }
+
+        public Duration getIdleTimeout() { return idleTimeout; }
+        public void setIdleTimeout(Duration idleTimeout) { this.idleTimeout = idleTimeout; }
+
+        public Resilience getResilience() { return resilience; }
+        public void setResilience(Resilience resilience) { this.resilience = resilience; }
+    }
+
+    /**
+     * Circuit breaker e bulkhead del servizio (review.downstream.<nome>.resilience.*).
+     */
+    public static class Resilience {
+        // il circuito si apre quando almeno failureRateThreshold% delle ultime slidingWindowSize chiamate fallisce
+        private double failureRateThreshold = 50;
+        private int slidingWindowSize = 20;
+        private int minimumCalls = 10;
+        // quanto resta aperto prima di lasciare passare halfOpenCalls chiamate di prova
+        private Duration openDuration = Duration.ofSeconds(10);
+        private int halfOpenCalls = 3;
+        // chiamate concorrenti massime; oltre si attende al massimo maxWait e poi si rifiuta
+        private int maxConcurrentCalls = 25;
+        private Duration maxWait = Duration.ZERO;
+        // letture con servizio non disponibile: FAIL_CLOSED oppure SERVE_STALE (ultimo valore in cache)
+        private FallbackPolicy readFallback = FallbackPolicy.FAIL_CLOSED;
+
+        public double getFailureRateThreshold() { return failureRateThreshold; }
+        public void setFailureRateThreshold(double failureRateThreshold) { this.failureRateThreshold = failureRateThreshold; }
+
+        public int getSlidingWindowSize() { return slidingWindowSize; }
+        public void setSlidingWindowSize(int slidingWindowSize) { this.slidingWindowSize = slidingWindowSize; }
+
+        public int getMinimumCalls() { return minimumCalls; }
+        public void setMinimumCalls(int minimumCalls) { this.minimumCalls = minimumCalls; }
+
+        public Duration getOpenDuration() { return openDuration; }
+        public void setOpenDuration(Duration openDuration) { this.openDuration = openDuration; }
+
+        public int getHalfOpenCalls() { return halfOpenCalls; }
+        public void setHalfOpenCalls(int halfOpenCalls) { this.halfOpenCalls = halfOpenCalls; }
+
+        public int getMaxConcurrentCalls() { return maxConcurrentCalls; }
+        public void setMaxConcurrentCalls(int maxConcurrentCalls) { this.maxConcurrentCalls = maxConcurrentCalls; }
+
+        public Duration getMaxWait() { return maxWait; }
+        public void setMaxWait(Duration maxWait) { this.maxWait = maxWait; }
+
+        public FallbackPolicy getReadFallback() { return readFallback; }
+        public void setReadFallback(FallbackPolicy readFallback) { this.readFallback = readFallback; }
+    }
+}
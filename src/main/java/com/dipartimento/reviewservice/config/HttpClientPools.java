@@ -0,0 +1,71 @@
+package com.dipartimento.reviewservice.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Registro dei pool di connessioni HTTP verso i servizi a valle: espone l'utilizzo e li chiude allo shutdown.
+ * L'utilizzo è anche in metriche, gauge review.http.pool.{leased,available,pending,max} con tag service.
+ */
+public class HttpClientPools implements DisposableBean {
+
+    private record Pool(PoolingHttpClientConnectionManager connectionManager, CloseableHttpClient client) {}
+
+    public static final String METRIC_PREFIX = "review.http.pool.";
+
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public HttpClientPools(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void register(String name, PoolingHttpClientConnectionManager connectionManager, CloseableHttpClient client) {
+        pools.put(name, new Pool(connectionManager, client));
+        gauge("leased", "Connessioni in uso", name, connectionManager, manager -> manager.getTotalStats().getLeased());
+        gauge("available", "Connessioni aperte e libere", name, connectionManager, manager -> manager.getTotalStats().getAvailable());
+        gauge("pending", "Richieste in attesa di una connessione", name, connectionManager, manager -> manager.getTotalStats().getPending());
+        gauge("max", "Connessioni massime del pool", name, connectionManager, manager -> manager.getTotalStats().getMax());
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        pools.forEach((name, pool) -> {
+            PoolStats total = pool.connectionManager().getTotalStats();
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("leased", total.getLeased());
+            values.put("available", total.getAvailable());
+            values.put("pending", total.getPending());
+            values.put("max", total.getMax());
+            values.put("maxPerRoute", pool.connectionManager().getDefaultMaxPerRoute());
+            stats.put(name, values);
+        });
+        return stats;
+    }
+
+    // Il pool resta referenziato da pools: il gauge (riferimento debole) lo legge finché il client è aperto
+    private void gauge(String metric, String description, String service, PoolingHttpClientConnectionManager connectionManager,
+                       ToDoubleFunction<PoolingHttpClientConnectionManager> value) {
+        Gauge.builder(METRIC_PREFIX + metric, connectionManager, value)
+                .description(description)
+                .baseUnit("connections")
+                .tag("service", service)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        pools.values().forEach(pool -> pool.client().close(CloseMode.GRACEFUL));
+        pools.clear();
+    }
+}
@@ -0,0 +1,23 @@
+package com.dipartimento.reviewservice.config;
+
+import com.dipartimento.reviewservice.security.util.JwtUtil;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class JwtConfig {
+
+    @Value("${review.jwt.claims-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${review.jwt.claims-cache.ttl:5m}")
+    private Duration ttl;
+
+    @PostConstruct
+    public void configureClaimsCache() {
+        JwtUtil.configureCache(maxSize, ttl);
+    }
+}
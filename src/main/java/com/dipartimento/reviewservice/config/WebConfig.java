@@ -2,10 +2,12 @@ package com.dipartimento.reviewservice.config;
 
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
+@Profile("!reactive")
 public class WebConfig implements WebMvcConfigurer {
 
     @Override
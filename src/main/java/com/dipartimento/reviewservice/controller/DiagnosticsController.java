@@ -0,0 +1,130 @@
+package com.dipartimento.reviewservice.controller;
+
+import com.dipartimento.reviewservice.config.HttpClientPools;
+import com.dipartimento.reviewservice.service.BookingCheckClient;
+import com.dipartimento.reviewservice.service.EventCache;
+import com.dipartimento.reviewservice.service.EventReviewsCache;
+import com.dipartimento.reviewservice.service.ReviewWriteBehind;
+import com.dipartimento.reviewservice.service.invalidation.InvalidationBus;
+import com.dipartimento.reviewservice.service.resilience.DownstreamGuards;
+import com.dipartimento.reviewservice.tracing.RecentTracesExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Statistiche interne del servizio (cache, client verso i servizi a valle, tracce recenti).
+ * Le tracce contengono URL, id di utenti ed eventi e tempi dei servizi a valle: come le invalidazioni,
+ * l'accesso richiede il segreto di InternalToken, altrimenti 403.
+ */
+@RestController
+@RequestMapping("/internal/stats")
+public class DiagnosticsController {
+
+    private final EventCache eventCache;
+    private final HttpClientPools httpClientPools;
+    private final DownstreamGuards downstreamGuards;
+    private final ReviewWriteBehind writeBehind;
+    private final EventReviewsCache eventReviewsCache;
+    private final InvalidationBus invalidationBus;
+    private final BookingCheckClient bookingCheckClient;
+    private final RecentTracesExporter recentTraces;
+    private final ObjectProvider<SdkTracerProvider> tracerProvider;
+    private final InternalToken internalToken;
+
+    @Autowired
+    public DiagnosticsController(EventCache eventCache, HttpClientPools httpClientPools, DownstreamGuards downstreamGuards,
+                                 ReviewWriteBehind writeBehind, EventReviewsCache eventReviewsCache,
+                                 InvalidationBus invalidationBus, BookingCheckClient bookingCheckClient,
+                                 RecentTracesExporter recentTraces, ObjectProvider<SdkTracerProvider> tracerProvider,
+                                 InternalToken internalToken) {
+        this.eventCache = eventCache;
+        this.httpClientPools = httpClientPools;
+        this.downstreamGuards = downstreamGuards;
+        this.writeBehind = writeBehind;
+        this.eventReviewsCache = eventReviewsCache;
+        this.invalidationBus = invalidationBus;
+        this.bookingCheckClient = bookingCheckClient;
+        this.recentTraces = recentTraces;
+        this.tracerProvider = tracerProvider;
+        this.internalToken = internalToken;
+    }
+
+    @GetMapping("/event-cache")
+    public ResponseEntity<Map<String, Object>> eventCacheStats(
+            @RequestHeader(value = InternalToken.HEADER, required = false) String token) {
+        return ifTrusted(token, eventCache::stats);
+    }
+
+    @GetMapping("/http-pools")
+    public ResponseEntity<Map<String, Object>> httpPoolStats(
+            @RequestHeader(value = InternalToken.HEADER, required = false) String token) {
+        return ifTrusted(token, httpClientPools::stats);
+    }
+
+    @GetMapping("/resilience")
+    public ResponseEntity<Map<String, Object>> resilienceStats(
+            @RequestHeader(value = InternalToken.HEADER, required = false) String token) {
+        return ifTrusted(token, downstreamGuards::stats);
+    }
+
+    @GetMapping("/write-behind")
+    public ResponseEntity<Map<String, Object>> writeBehindStats(
+            @RequestHeader(value = InternalToken.HEADER, required = false) String token) {
+        return ifTrusted(token, writeBehind::stats);
+    }
+
+    @GetMapping("/event-reviews-cache")
+    public ResponseEntity<Map<String, Object>> eventReviewsCacheStats(
+            @RequestHeader(value = InternalToken.HEADER, required = false) String token) {
+        return ifTrusted(token, eventReviewsCache::stats);
+    }
+
+    @GetMapping("/invalidation")
+    public ResponseEntity<Map<String, Object>> invalidationStats(
+            @RequestHeader(value = InternalToken.HEADER, required = false) String token) {
+        return ifTrusted(token, invalidationBus::stats);
+    }
+
+    @GetMapping("/booking-checks")
+    public ResponseEntity<Map<String, Object>> bookingCheckStats(
+            @RequestHeader(value = InternalToken.HEADER, required = false) String token) {
+        return ifTrusted(token, bookingCheckClient::stats);
+    }
+
+    /**
+     * Le tracce più lente tra le ultime conservate, span per span. Prima si svuota il BatchSpanProcessor,
+     * così compaiono anche le richieste degli ultimi secondi.
+     */
+    @GetMapping("/traces")
+    public ResponseEntity<Map<String, Object>> slowestTraces(@RequestParam(defaultValue = "10") int limit,
+                                                             @RequestHeader(value = InternalToken.HEADER, required = false) String token) {
+        return ifTrusted(token, () -> {
+            tracerProvider.ifAvailable(provider -> provider.forceFlush().join(1, TimeUnit.SECONDS));
+            List<Map<String, Object>> traces = recentTraces.slowest(Math.max(1, Math.min(limit, 100)));
+            Map<String, Object> body = new LinkedHashMap<>(recentTraces.stats());
+            body.put("slowest", traces);
+            return body;
+        });
+    }
+
+    private ResponseEntity<Map<String, Object>> ifTrusted(String token, Supplier<Map<String, Object>> stats) {
+        if (!internalToken.isTrusted(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(stats.get());
+    }
+}
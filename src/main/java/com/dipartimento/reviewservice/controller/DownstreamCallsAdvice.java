@@ -0,0 +1,38 @@
+package com.dipartimento.reviewservice.controller;
+
+import com.dipartimento.reviewservice.service.RequestLookups;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Aggiunge alle risposte l'header X-Downstream-Calls con il numero di chiamate remote (auth, event, booking)
+ * fatte per servire la richiesta. Serve ai test di regressione: di default è spento, attivarlo solo
+ * in ambienti non pubblici con review.request-lookups.expose-header=true.
+ */
+@ControllerAdvice
+@Profile("!reactive")
+@ConditionalOnProperty(name = "review.request-lookups.expose-header", havingValue = "true")
+public class DownstreamCallsAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String HEADER = "X-Downstream-Calls";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        response.getHeaders().set(HEADER, String.valueOf(RequestLookups.current().totalCalls()));
+        return body;
+    }
+}
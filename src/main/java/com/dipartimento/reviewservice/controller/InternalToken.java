@@ -0,0 +1,30 @@
+package com.dipartimento.reviewservice.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Segreto condiviso per gli endpoint /internal/** (invalidazioni, statistiche): accesso solo tra servizi
+ * e dal monitoraggio, con il segreto review.internal.token nell'header X-Internal-Token.
+ * Se il segreto non è configurato nessuna richiesta è ammessa.
+ */
+@Component
+public class InternalToken {
+
+    public static final String HEADER = "X-Internal-Token";
+
+    private final byte[] secret;
+
+    public InternalToken(@Value("${review.internal.token:}") String secret) {
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Confronto a tempo costante: la durata non dice quanti caratteri del segreto sono giusti
+    public boolean isTrusted(String token) {
+        return secret.length > 0 && token != null
+                && MessageDigest.isEqual(secret, token.getBytes(StandardCharsets.UTF_8));
+    }
+}
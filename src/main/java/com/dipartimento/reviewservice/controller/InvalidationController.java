@@ -0,0 +1,41 @@
+package com.dipartimento.reviewservice.controller;
+
+import com.dipartimento.reviewservice.service.invalidation.InvalidationRelay;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Notifiche dagli altri servizi: l'Event service chiama questo endpoint quando modifica un evento,
+ * così i metadati in cache vengono scartati su tutte le istanze.
+ *
+ * Accesso solo tra servizi (InternalToken): senza il segreto condiviso la risposta è 403.
+ */
+@RestController
+@RequestMapping("/internal/invalidate")
+public class InvalidationController {
+
+    private final InvalidationRelay invalidationRelay;
+    private final InternalToken internalToken;
+
+    @Autowired
+    public InvalidationController(InvalidationRelay invalidationRelay, InternalToken internalToken) {
+        this.invalidationRelay = invalidationRelay;
+        this.internalToken = internalToken;
+    }
+
+    @PostMapping("/event/{eventId}")
+    public ResponseEntity<Void> invalidateEvent(@PathVariable Long eventId,
+                                                @RequestHeader(value = InternalToken.HEADER, required = false) String token) {
+        if (!internalToken.isTrusted(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        invalidationRelay.invalidateEvent(eventId);
+        return ResponseEntity.noContent().build();
+    }
+}
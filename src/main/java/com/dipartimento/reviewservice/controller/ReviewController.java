@@ -1,29 +1,82 @@
 package com.dipartimento.reviewservice.controller;
 
 
+import com.dipartimento.reviewservice.dto.BookingPair;
+import com.dipartimento.reviewservice.dto.RatingSummary;
 import com.dipartimento.reviewservice.dto.ReviewDTO;
+import com.dipartimento.reviewservice.dto.ReviewView;
 import com.dipartimento.reviewservice.model.Review;
 import com.dipartimento.reviewservice.repository.ReviewRepository;
+import com.dipartimento.reviewservice.service.EventReviewsCache;
+import com.dipartimento.reviewservice.service.PreconditionRunner;
+import com.dipartimento.reviewservice.service.RatingSummaryService;
+import com.dipartimento.reviewservice.service.ReviewPurgeJobs;
 import com.dipartimento.reviewservice.service.ReviewServ;
+import com.dipartimento.reviewservice.service.ReviewVersionTracker;
+import com.dipartimento.reviewservice.service.ReviewWriteBehind;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/reviews")
+@Profile("!reactive") // con il profilo reactive lo stesso contratto lo serve ReactiveReviewController
 public class ReviewController {
 
+    private static final Logger log = LoggerFactory.getLogger(ReviewController.class);
+
     private final ReviewRepository repository;
     private final ReviewServ reviewService;
+    private final PreconditionRunner preconditionRunner;
+    private final ObjectMapper objectMapper;
+    private final RatingSummaryService ratingSummaryService;
+    private final ReviewWriteBehind writeBehind;
+    private final ReviewPurgeJobs purgeJobs;
+    private final ReviewVersionTracker versionTracker;
+    private final EventReviewsCache eventReviewsCache;
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int MAX_SUMMARY_BATCH = 500;
+    public static final int MAX_BOOKING_CHECKS = 500;
+    // Risposte legate all'utente: solo cache del client, sempre rivalidata con If-None-Match
+    public static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
 
     @Autowired
-    public ReviewController(ReviewRepository repository, ReviewServ reviewService) {
+    public ReviewController(ReviewRepository repository, ReviewServ reviewService, PreconditionRunner preconditionRunner,
+                            ObjectMapper objectMapper, RatingSummaryService ratingSummaryService,
+                            ReviewWriteBehind writeBehind, ReviewPurgeJobs purgeJobs,
+                            ReviewVersionTracker versionTracker, EventReviewsCache eventReviewsCache) {
         this.repository = repository;
         this.reviewService = reviewService;
+        this.preconditionRunner = preconditionRunner;
+        this.objectMapper = objectMapper;
+        this.ratingSummaryService = ratingSummaryService;
+        this.writeBehind = writeBehind;
+        this.purgeJobs = purgeJobs;
+        this.versionTracker = versionTracker;
+        this.eventReviewsCache = eventReviewsCache;
     }
 
 
@@ -54,21 +107,18 @@ public class ReviewController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("eventId mancante");
         }
 
-        if (!reviewService.isEventExists(dto.getEventId())) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Evento non trovato");
-        }
-
-        if (!reviewService.hasUserBookedEvent(userIdFromToken, dto.getEventId(), token)) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Non hai prenotato questo evento");
-        }
-
-        if (!reviewService.isEventInPast(dto.getEventId())) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Puoi recensire solo a partire dal giorno successivo all'evento.");
-        }
-
-        // Se recensione già esistente, cancellala prima di salvare quella nuova
-        if (repository.existsByUserIdAndEventId(userIdFromToken, dto.getEventId())) {
-            reviewService.deleteReviewsByUserIdAndEventId(userIdFromToken, dto.getEventId());
+        // Controlli indipendenti verso Event e Booking service in parallelo: si risponde al primo rifiuto
+        Long eventId = dto.getEventId();
+        PreconditionRunner.Denial denial = preconditionRunner.firstDenial(List.of(
+                new PreconditionRunner.Check(() -> reviewService.isEventExists(eventId),
+                        HttpStatus.NOT_FOUND, "Evento non trovato"),
+                new PreconditionRunner.Check(() -> reviewService.hasUserBookedEvent(userIdFromToken, eventId, token),
+                        HttpStatus.FORBIDDEN, "Non hai prenotato questo evento"),
+                new PreconditionRunner.Check(() -> reviewService.isEventInPast(eventId),
+                        HttpStatus.FORBIDDEN, "Puoi recensire solo a partire dal giorno successivo all'evento.")
+        ));
+        if (denial != null) {
+            return ResponseEntity.status(denial.status()).body(denial.message());
         }
 
         Review review = new Review();
@@ -77,14 +127,73 @@ public class ReviewController {
         review.setRating(dto.getRating());
         review.setComment(dto.getComment());
 
-        Review saved = repository.save(review);
+        // Modalità write-behind: la recensione validata viene accodata e salvata in batch
+        if (writeBehind.isEnabled()) {
+            String trackingId = writeBehind.submit(review);
+            if (trackingId == null) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body("Troppe recensioni in attesa, riprova tra poco");
+            }
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/reviews/submissions/" + trackingId))
+                    .body(Map.of("trackingId", trackingId, "status", ReviewWriteBehind.Status.QUEUED));
+        }
+
+        // Se la recensione esiste già viene sostituita nello stesso statement (upsert su user_id, event_id)
+        Review saved = reviewService.upsertReview(review);
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
+    /**
+     * Stato di una recensione inviata in modalità write-behind (QUEUED, STORED, FAILED).
+     */
+    @GetMapping("/submissions/{trackingId}")
+    public ResponseEntity<?> getSubmissionStatus(@PathVariable String trackingId) {
+        ReviewWriteBehind.Status status = writeBehind.getStatus(trackingId);
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Invio non trovato");
+        }
+        return ResponseEntity.ok(Map.of("trackingId", trackingId, "status", status));
+    }
+
 
+    /**
+     * Paginazione a cursore: restituisce al massimo limit recensioni con id > after.
+     * Se ce ne sono altre, l'header X-Next-Cursor contiene il valore da passare come after alla pagina successiva.
+     */
     @GetMapping
-    public List<Review> getAllReviews() {
-        return repository.findAll();
+    public ResponseEntity<List<ReviewView>> getAllReviews(@RequestParam(required = false) Long after,
+                                                          @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<ReviewView> page = repository.findViewsAfter(after != null ? after : 0L, Limit.of(pageSize));
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).id()));
+        }
+        return response.body(page);
+    }
+
+    /**
+     * Esportazione completa in NDJSON (una recensione per riga), scritta man mano che le righe
+     * arrivano dal cursore JDBC: l'occupazione di heap non dipende dalla dimensione della tabella.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllReviews(@RequestParam(required = false) Long after) {
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream, 16 * 1024);
+            repository.streamAll(after, review -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(review));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
 
@@ -92,32 +201,116 @@ public class ReviewController {
 
     @GetMapping("/event/{eventId}")
     public ResponseEntity<?> getReviewsByEvent(@PathVariable Long eventId,
-                                               @RequestHeader("Authorization") String authHeader) {
+                                               @RequestHeader("Authorization") String authHeader,
+                                               WebRequest request) {
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token mancante o malformato");
         }
 
         String token = authHeader.substring(7);
         Long userId = reviewService.extractUserIdFromToken(token);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Utente non autorizzato");
+        }
 
-        boolean isOrganizer = reviewService.isUserOrganizerOfEvent(userId, eventId, token);
-        boolean hasBooked = reviewService.hasUserBookedEvent(userId, eventId, token);
+        // Il ruolo ORGANIZER si ricava dal token: solo se manca si interrogano Event e Booking service, in parallelo
         boolean hasRoleOrganizer = reviewService.hasRole(token, "ORGANIZER");
+        PreconditionRunner.Denial denial = hasRoleOrganizer ? null : preconditionRunner.requireAny(List.of(
+                () -> reviewService.isUserOrganizerOfEvent(userId, eventId, token),
+                () -> reviewService.hasUserBookedEvent(userId, eventId, token)
+        ), HttpStatus.FORBIDDEN, "Accesso negato alle recensioni");
 
-        System.out.println("[DEBUG] userId: " + userId + ", isOrganizer: " + isOrganizer + ", hasBooked: " + hasBooked + ", hasRoleOrganizer: " + hasRoleOrganizer);
+        log.debug("Recensioni evento {}: userId={}, hasRoleOrganizer={}, denial={}", eventId, userId, hasRoleOrganizer, denial);
 
         // Consenti accesso se è organizzatore dell'evento, oppure ha prenotato, oppure ha ruolo ORGANIZER
-        if (!isOrganizer && !hasBooked && !hasRoleOrganizer) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Accesso negato alle recensioni");
+        if (denial != null) {
+            return ResponseEntity.status(denial.status()).body(denial.message());
         }
 
-        return ResponseEntity.ok(repository.findByEventId(eventId));
+        // GET condizionale solo dopo i controlli: un 304 dice che l'elenco non è cambiato, e lo può
+        // sapere soltanto chi ha il diritto di leggerlo
+        ReviewVersionTracker.Version version = versionTracker.forEvent(eventId);
+        EventReviewsCache.Listing listing = eventReviewsCache.get(eventId, version.key(),
+                () -> toJson(repository.findViewsByEventId(eventId)));
+        if (request.checkNotModified(listing.etag(), version.lastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).contentType(MediaType.APPLICATION_JSON).body(listing.json());
+    }
+
+    /**
+     * Riepilogo voti dell'evento (numero, media, distribuzione 1-5), letto dai contatori in memoria.
+     */
+    @GetMapping("/event/{eventId}/summary")
+    public RatingSummary getRatingSummary(@PathVariable Long eventId) {
+        return ratingSummaryService.getSummary(eventId);
+    }
+
+    /**
+     * Riepiloghi di più eventi in una sola chiamata, per le pagine elenco: ?eventIds=1,2,3
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<?> getRatingSummaries(@RequestParam List<Long> eventIds) {
+        if (eventIds.size() > MAX_SUMMARY_BATCH) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Al massimo " + MAX_SUMMARY_BATCH + " eventi per richiesta");
+        }
+        return ResponseEntity.ok(ratingSummaryService.getSummaries(eventIds).values());
     }
 
 
 
 
 
+    /**
+     * Prenotazioni di più coppie (utente, evento) in una sola chiamata, per la dashboard degli organizzatori
+     * e la moderazione: una o poche chiamate batch al Booking service invece di una GET per coppia.
+     * Chi ha ruolo ORGANIZER può verificare qualunque utente, gli altri solo sé stessi.
+     */
+    @PostMapping("/eligibility")
+    public ResponseEntity<?> checkBookings(@RequestBody List<BookingPair> pairs,
+                                           @RequestHeader("Authorization") String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token mancante o malformato");
+        }
+
+        String token = authHeader.substring(7);
+        Long userId = reviewService.extractUserIdFromToken(token);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Utente non autorizzato");
+        }
+        if (pairs.size() > MAX_BOOKING_CHECKS) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Al massimo " + MAX_BOOKING_CHECKS + " coppie per richiesta");
+        }
+        if (pairs.stream().anyMatch(pair -> pair.userId() == null || pair.eventId() == null)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("userId ed eventId obbligatori");
+        }
+        // Le prenotazioni di altri utenti le vede solo l'organizzatore, e solo per gli eventi che organizza:
+        // un controllo per evento, in parallelo; se non si riesce a verificarlo la richiesta è rifiutata
+        List<Long> othersEvents = pairs.stream()
+                .filter(pair -> !userId.equals(pair.userId()))
+                .map(BookingPair::eventId)
+                .distinct()
+                .toList();
+        if (!othersEvents.isEmpty()) {
+            if (!reviewService.isUserOrganizer(token)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Non autorizzato");
+            }
+            PreconditionRunner.Denial denial = preconditionRunner.firstDenial(othersEvents.stream()
+                    .map(eventId -> new PreconditionRunner.Check(() -> reviewService.isUserOrganizerOfEvent(userId, eventId, token),
+                            HttpStatus.FORBIDDEN, "Non autorizzato"))
+                    .toList());
+            if (denial != null) {
+                return ResponseEntity.status(denial.status()).body(denial.message());
+            }
+        }
+
+        try {
+            return ResponseEntity.ok(reviewService.checkBookings(pairs, token));
+        } catch (RestClientException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(PreconditionRunner.TIMEOUT.message());
+        }
+    }
+
     @DeleteMapping("/user/{userId}/event/{eventId}")
     public ResponseEntity<?> deleteReviewsByUserIdAndEvent(
             @PathVariable Long userId,
@@ -146,19 +339,106 @@ public class ReviewController {
 
     }
 
+    /**
+     * Cancellazione di tutte le recensioni dell'utente (diritto all'oblio), solo per l'utente stesso.
+     * Gira in background a blocchi: risponde 202 con il job da interrogare.
+     */
+    @DeleteMapping("/user/{userId}")
+    public ResponseEntity<?> deleteAllReviewsOfUser(@PathVariable Long userId,
+                                                    @RequestHeader("Authorization") String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token mancante o malformato");
+        }
+
+        String token = authHeader.substring(7);
+        Long loggedUserId = reviewService.extractUserIdFromToken(token);
+        if (!userId.equals(loggedUserId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Non autorizzato");
+        }
+
+        return purgeAccepted(purgeJobs.purgeUser(userId, loggedUserId));
+    }
+
+    /**
+     * Cancellazione di tutte le recensioni di un evento (es. evento annullato), solo per il suo organizzatore.
+     */
+    @DeleteMapping("/event/{eventId}")
+    public ResponseEntity<?> deleteAllReviewsOfEvent(@PathVariable Long eventId,
+                                                     @RequestHeader("Authorization") String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token mancante o malformato");
+        }
+
+        String token = authHeader.substring(7);
+        Long loggedUserId = reviewService.extractUserIdFromToken(token);
+        boolean organizer;
+        try {
+            // Cancellazione irreversibile: mai autorizzata da un evento in cache scaduto
+            organizer = loggedUserId != null && reviewService.isUserOrganizerOfEventForWrite(loggedUserId, eventId);
+        } catch (RestClientException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(PreconditionRunner.TIMEOUT.message());
+        }
+        if (!organizer) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Solo l'organizzatore può cancellare le recensioni dell'evento");
+        }
+
+        return purgeAccepted(purgeJobs.purgeEvent(eventId, loggedUserId));
+    }
+
+    /**
+     * Avanzamento di un job di cancellazione, visibile solo a chi l'ha avviato.
+     */
+    @GetMapping("/purge-jobs/{jobId}")
+    public ResponseEntity<?> getPurgeJob(@PathVariable String jobId,
+                                         @RequestHeader("Authorization") String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token mancante o malformato");
+        }
+
+        Long loggedUserId = reviewService.extractUserIdFromToken(authHeader.substring(7));
+        ReviewPurgeJobs.Job job = purgeJobs.getJob(jobId);
+        if (job == null || !job.getRequestedBy().equals(loggedUserId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Job non trovato");
+        }
+        return ResponseEntity.ok(job.snapshot());
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ResponseEntity<?> purgeAccepted(ReviewPurgeJobs.Job job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/reviews/purge-jobs/" + job.getId()))
+                .body(job.snapshot());
+    }
+
 
 
 
     @GetMapping("/me")
-    public ResponseEntity<?> getMyReviews(@RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<?> getMyReviews(@RequestHeader("Authorization") String authHeader, WebRequest request) {
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token mancante o malformato");
         }
 
         String token = authHeader.substring(7);
         Long userId = reviewService.extractUserIdFromToken(token);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Utente non autorizzato");
+        }
 
-        return ResponseEntity.ok(repository.findByUserId(userId));
+        ReviewVersionTracker.Version version = versionTracker.forUser(userId);
+        EventReviewsCache.Listing listing = eventReviewsCache.getForUser(userId, version.key(),
+                () -> toJson(repository.findViewsByUserId(userId)));
+        if (request.checkNotModified(listing.etag(), version.lastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).contentType(MediaType.APPLICATION_JSON).body(listing.json());
     }
 
     @PutMapping("/user/{userId}/event/{eventId}")
@@ -181,22 +461,18 @@ public class ReviewController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Non autorizzato");
         }
 
-        if (!repository.existsByUserIdAndEventId(userId, eventId)) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Recensione non trovata");
-        }
-
         List<Review> reviews = repository.findByUserIdAndEventId(userId, eventId);
 
         if (reviews.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Recensione non trovata");
         }
 
-        Review review = reviews.get(0); // Prendi la prima recensione (se ce n’è più di una)
+        Review review = reviews.get(0); // al massimo una: vincolo univoco (user_id, event_id)
 
         review.setRating(dto.getRating());
         review.setComment(dto.getComment());
 
-        Review updated = repository.save(review);
+        Review updated = reviewService.saveReview(review);
 
         return ResponseEntity.ok(updated);
     }
@@ -0,0 +1,12 @@
+package com.dipartimento.reviewservice.dto;
+
+/**
+ * Esito della verifica di prenotazione per una coppia (utente, evento), come lo restituisce
+ * POST /api/bookings/check/batch del Booking service.
+ */
+public record BookingCheck(Long userId, Long eventId, boolean booked) {
+
+    public BookingPair pair() {
+        return new BookingPair(userId, eventId);
+    }
+}
@@ -0,0 +1,6 @@
+package com.dipartimento.reviewservice.dto;
+
+/**
+ * Coppia (utente, evento) di cui verificare la prenotazione.
+ */
+public record BookingPair(Long userId, Long eventId) {}
@@ -0,0 +1,47 @@
+package com.dipartimento.reviewservice.dto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Riepilogo dei voti di un evento: numero di recensioni, media e distribuzione 1-5.
+ */
+public class RatingSummary {
+
+    private final Long eventId;
+    private final long count;
+    private final double average;
+    private final long[] histogram;
+
+    public RatingSummary(Long eventId, long[] histogram, long count, long sum) {
+        this.eventId = eventId;
+        this.histogram = histogram;
+        this.count = count;
+        this.average = count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    public static RatingSummary empty(Long eventId) {
+        return new RatingSummary(eventId, new long[5], 0, 0);
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getAverage() {
+        return average;
+    }
+
+    // Chiavi "1".."5" -> numero di recensioni con quel voto
+    public Map<String, Long> getHistogram() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < histogram.length; i++) {
+            result.put(String.valueOf(i + 1), histogram[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,9 @@
+package com.dipartimento.reviewservice.dto;
+
+/**
+ * Recensione in sola lettura per le risposte degli endpoint GET: costruita direttamente dalla query
+ * (SELECT new ...), senza entità gestite da Hibernate né snapshot per il dirty checking.
+ * Serializzata in JSON con gli stessi campi di Review.
+ */
+public record ReviewView(Long id, Long eventId, Long userId, int rating, String comment) {
+}
@@ -0,0 +1,16 @@
+package com.dipartimento.reviewservice.logging;
+
+import org.springframework.boot.json.JsonWriter;
+import org.springframework.boot.logging.structured.StructuredLoggingJsonMembersCustomizer;
+
+/**
+ * Log JSON (profilo prod, logging.structured.json.customizer): maschera i token nel messaggio e
+ * nell'eccezione di ogni evento, compresi quelli scritti da librerie che non passano da Redaction.
+ */
+public class RedactingJsonMembersCustomizer implements StructuredLoggingJsonMembersCustomizer<Object> {
+
+    @Override
+    public void customize(JsonWriter.Members<Object> members) {
+        members.applyingValueProcessor(JsonWriter.ValueProcessor.of(String.class, Redaction::redact));
+    }
+}
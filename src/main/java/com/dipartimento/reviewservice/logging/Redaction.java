@@ -0,0 +1,30 @@
+package com.dipartimento.reviewservice.logging;
+
+import java.util.regex.Pattern;
+
+/**
+ * Maschera token JWT e header Authorization nei testi che finiscono nei log (messaggi di eccezioni
+ * dei servizi a valle, messaggi di librerie). Il controllo veloce evita la regex nel caso comune.
+ */
+public final class Redaction {
+
+    public static final String MASK = "***";
+
+    private static final Pattern JWT = Pattern.compile("eyJ[A-Za-z0-9_-]*\\.[A-Za-z0-9_-]*\\.[A-Za-z0-9_-]*");
+    private static final Pattern BEARER = Pattern.compile("(?i)(bearer\\s+)[A-Za-z0-9._~+/=-]+");
+
+    private Redaction() {
+    }
+
+    public static String redact(String text) {
+        if (text == null || (!text.contains("eyJ") && !containsBearer(text))) {
+            return text;
+        }
+        String masked = JWT.matcher(text).replaceAll(MASK);
+        return BEARER.matcher(masked).replaceAll("$1" + MASK);
+    }
+
+    private static boolean containsBearer(String text) {
+        return text.contains("earer ") || text.contains("EARER ");
+    }
+}
@@ -0,0 +1,113 @@
+package com.dipartimento.reviewservice.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Log di warning ed errori con limite di frequenza, per gli errori che sotto carico si ripetono a ogni
+ * richiesta (servizio a valle giù, circuito aperto): al più permits messaggi per interval con lo stesso
+ * formato, gli altri vengono contati e il numero dei soppressi compare nel messaggio successivo.
+ *
+ * Se l'ultimo argomento è un'eccezione lo stack trace si scrive al più una volta per stack-trace-interval
+ * per formato; le altre volte resta solo il tipo e il messaggio dell'eccezione, con i token mascherati.
+ */
+public final class SampledLogger {
+
+    private static final int DEFAULT_PERMITS = 10;
+    private static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(10);
+    private static final Duration DEFAULT_STACK_TRACE_INTERVAL = Duration.ofMinutes(1);
+
+    private static final class Window {
+        private final AtomicLong start;
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicLong suppressed = new AtomicLong();
+        private final AtomicLong lastStackTrace;
+
+        private Window(long now, long stackTraceInterval) {
+            this.start = new AtomicLong(now);
+            this.lastStackTrace = new AtomicLong(now - stackTraceInterval);
+        }
+    }
+
+    private final Logger log;
+    private final int permits;
+    private final long intervalNanos;
+    private final long stackTraceIntervalNanos;
+    private final LongSupplier clock;
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    public static SampledLogger of(Class<?> type) {
+        return new SampledLogger(LoggerFactory.getLogger(type), DEFAULT_PERMITS, DEFAULT_INTERVAL,
+                DEFAULT_STACK_TRACE_INTERVAL, System::nanoTime);
+    }
+
+    SampledLogger(Logger log, int permits, Duration interval, Duration stackTraceInterval, LongSupplier clock) {
+        this.log = log;
+        this.permits = permits;
+        this.intervalNanos = interval.toNanos();
+        this.stackTraceIntervalNanos = stackTraceInterval.toNanos();
+        this.clock = clock;
+    }
+
+    public void warn(String format, Object... args) {
+        if (log.isWarnEnabled()) {
+            emit(Level.WARN, format, args);
+        }
+    }
+
+    public void error(String format, Object... args) {
+        if (log.isErrorEnabled()) {
+            emit(Level.ERROR, format, args);
+        }
+    }
+
+    private void emit(Level level, String format, Object[] args) {
+        long now = clock.getAsLong();
+        Window window = windows.computeIfAbsent(format, key -> new Window(now, stackTraceIntervalNanos));
+
+        long start = window.start.get();
+        if (now - start >= intervalNanos && window.start.compareAndSet(start, now)) {
+            window.count.set(0);
+        }
+        if (window.count.incrementAndGet() > permits) {
+            window.suppressed.incrementAndGet();
+            return;
+        }
+
+        Throwable error = args.length > 0 && args[args.length - 1] instanceof Throwable t ? t : null;
+        Object[] values = error != null ? Arrays.copyOf(args, args.length - 1) : args;
+        StringBuilder message = new StringBuilder(format);
+        if (error != null) {
+            long last = window.lastStackTrace.get();
+            if (now - last < stackTraceIntervalNanos || !window.lastStackTrace.compareAndSet(last, now)) {
+                message.append(" - {}");
+                values = append(values, Redaction.redact(error.toString()));
+                error = null;
+            }
+        }
+        long suppressed = window.suppressed.getAndSet(0);
+        if (suppressed > 0) {
+            message.append(" ({} messaggi simili soppressi)");
+            values = append(values, suppressed);
+        }
+        if (error != null) {
+            values = append(values, error);
+        }
+        log.atLevel(level).log(message.toString(), values);
+    }
+
+    private static Object[] append(Object[] values, Object value) {
+        Object[] extended = Arrays.copyOf(values, values.length + 1);
+        extended[values.length] = value;
+        return extended;
+    }
+}
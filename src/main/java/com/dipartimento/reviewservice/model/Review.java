@@ -3,11 +3,15 @@ package com.dipartimento.reviewservice.model;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews",
+        uniqueConstraints = @UniqueConstraint(name = "uk_reviews_user_event", columnNames = {"user_id", "event_id"}),
+        indexes = @Index(name = "idx_reviews_event_rating", columnList = "event_id, rating"))
 public class Review {
 
+    // Sequenza con incremento 50: a differenza di IDENTITY permette a Hibernate di fare batch degli insert
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reviews_seq")
+    @SequenceGenerator(name = "reviews_seq", sequenceName = "reviews_seq", allocationSize = 50)
     private Long id;
 
     private Long eventId;    // ID dell'evento recensito
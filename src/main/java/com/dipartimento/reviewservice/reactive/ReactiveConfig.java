@@ -0,0 +1,94 @@
+package com.dipartimento.reviewservice.reactive;
+
+import com.dipartimento.reviewservice.config.DownstreamProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Infrastruttura dell'API reattiva (profilo reactive): server Netty e un WebClient per ciascun servizio
+ * a valle, con pool di connessioni e timeout propri letti dalle stesse impostazioni review.downstream.*
+ * dei RestTemplate. Una richiesta in attesa di un servizio lento non occupa nessun thread.
+ */
+@Configuration
+@Profile("reactive")
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReactiveConfig {
+
+    // In presenza di una ConnectionFactory R2DBC Spring Boot non crea il DataSource JDBC, che serve
+    // ancora a Flyway, a JPA (riepiloghi, cancellazioni) e al LISTEN delle invalidazioni
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // Con spring-boot-starter-web nel classpath il server reattivo scelto di default sarebbe Tomcat
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider authConnectionProvider(DownstreamProperties properties) {
+        return connectionProvider("auth", properties.getAuth());
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider eventConnectionProvider(DownstreamProperties properties) {
+        return connectionProvider("event", properties.getEvent());
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider bookingConnectionProvider(DownstreamProperties properties) {
+        return connectionProvider("booking", properties.getBooking());
+    }
+
+    @Bean
+    public WebClient authWebClient(WebClient.Builder builder, DownstreamProperties properties,
+                                   @Qualifier("authConnectionProvider") ConnectionProvider connections) {
+        return pooledWebClient(builder, properties.getAuth(), connections);
+    }
+
+    @Bean
+    public WebClient eventWebClient(WebClient.Builder builder, DownstreamProperties properties,
+                                    @Qualifier("eventConnectionProvider") ConnectionProvider connections) {
+        return pooledWebClient(builder, properties.getEvent(), connections);
+    }
+
+    @Bean
+    public WebClient bookingWebClient(WebClient.Builder builder, DownstreamProperties properties,
+                                      @Qualifier("bookingConnectionProvider") ConnectionProvider connections) {
+        return pooledWebClient(builder, properties.getBooking(), connections);
+    }
+
+    private static ConnectionProvider connectionProvider(String name, DownstreamProperties.Client settings) {
+        return ConnectionProvider.builder("review-" + name)
+                .maxConnections(settings.getMaxConnections())
+                .pendingAcquireTimeout(settings.getAcquireTimeout())
+                .maxIdleTime(settings.getIdleTimeout())
+                .build();
+    }
+
+    private static WebClient pooledWebClient(WebClient.Builder builder, DownstreamProperties.Client settings,
+                                             ConnectionProvider connections) {
+        HttpClient client = HttpClient.create(connections)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) settings.getConnectTimeout().toMillis())
+                .responseTimeout(settings.getReadTimeout());
+        return builder.clone()
+                .baseUrl(settings.getBaseUrl())
+                .clientConnector(new ReactorClientHttpConnector(client))
+                .build();
+    }
+}
@@ -0,0 +1,223 @@
+package com.dipartimento.reviewservice.reactive;
+
+import com.dipartimento.reviewservice.dto.BookingCheck;
+import com.dipartimento.reviewservice.dto.BookingPair;
+import com.dipartimento.reviewservice.dto.EventDTO;
+import com.dipartimento.reviewservice.dto.UsersAccounts;
+import com.dipartimento.reviewservice.logging.SampledLogger;
+import com.dipartimento.reviewservice.security.AuthenticatedUser;
+import com.dipartimento.reviewservice.security.util.JwtUtil;
+import com.dipartimento.reviewservice.service.EventCache;
+import com.dipartimento.reviewservice.service.resilience.DownstreamGuards;
+import com.dipartimento.reviewservice.service.resilience.FallbackPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Le chiamate di ReviewServ verso Auth, Event e Booking service, non bloccanti.
+ * Stessa EventCache, stessi circuit breaker e bulkhead (DownstreamGuards) dell'API servlet;
+ * come lì, un controllo che fallisce per un errore di rete conta come "no".
+ */
+@Component
+@Profile("reactive")
+public class ReactiveDownstreamClient {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveDownstreamClient.class);
+    private static final SampledLogger errors = SampledLogger.of(ReactiveDownstreamClient.class);
+
+    private final WebClient authWebClient;
+    private final WebClient eventWebClient;
+    private final WebClient bookingWebClient;
+    private final DownstreamGuards downstreamGuards;
+    private final EventCache eventCache;
+
+    private static final ParameterizedTypeReference<List<BookingCheck>> CHECKS = new ParameterizedTypeReference<>() {};
+
+    @Value("${review.booking-batch.enabled:true}")
+    private boolean bookingBatching;
+
+    @Value("${review.booking-batch.max-size:100}")
+    private int bookingBatchSize;
+
+    private volatile boolean bookingBatchUnsupported;
+
+    // false: identità dai claims del JWT verificati localmente; true: verifica anche su /auth/me
+    @Value("${review.auth.remote-verification:false}")
+    private boolean remoteVerification;
+
+    @Autowired
+    public ReactiveDownstreamClient(@Qualifier("authWebClient") WebClient authWebClient,
+                                    @Qualifier("eventWebClient") WebClient eventWebClient,
+                                    @Qualifier("bookingWebClient") WebClient bookingWebClient,
+                                    DownstreamGuards downstreamGuards, EventCache eventCache) {
+        this.authWebClient = authWebClient;
+        this.eventWebClient = eventWebClient;
+        this.bookingWebClient = bookingWebClient;
+        this.downstreamGuards = downstreamGuards;
+        this.eventCache = eventCache;
+    }
+
+    /**
+     * Utente del token, vuoto se il token non è valido. Va risolto una volta per richiesta:
+     * con la verifica remota ogni chiamata è una richiesta a /auth/me.
+     */
+    public Mono<AuthenticatedUser> resolveUser(String token) {
+        if (!remoteVerification) {
+            return Mono.justOrEmpty(JwtUtil.extractAuthenticatedUser(token));
+        }
+        return downstreamGuards.auth().callReactive(() -> authWebClient.get()
+                        .uri("/auth/me")
+                        .headers(headers -> headers.setBearerAuth(token))
+                        .retrieve()
+                        .bodyToMono(UsersAccounts.class))
+                .map(account -> new AuthenticatedUser(account.getId(), account.getUsername(), account.getRole()))
+                .onErrorResume(e -> {
+                    errors.warn("Verifica del token su /auth/me fallita", e);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Evento dalla cache condivisa, vuoto se non esiste; una sola chiamata remota per miss.
+     * La chiamata parte con il context Reactor di chi ha causato il miss (traccia della richiesta).
+     */
+    public Mono<EventDTO> getEvent(Long eventId) {
+        return Mono.deferContextual(context -> Mono.fromFuture(() -> eventCache.getAsync(eventId,
+                id -> fetchEvent(id).contextWrite(context).toFuture())));
+    }
+
+    /**
+     * Come getEvent, ma per le sole letture: con la policy SERVE_STALE, se l'Event service non risponde,
+     * restituisce l'ultimo valore noto anche se scaduto.
+     */
+    public Mono<EventDTO> getEventForRead(Long eventId) {
+        return getEvent(eventId).onErrorResume(e -> {
+            if (downstreamGuards.event().getReadFallback() == FallbackPolicy.SERVE_STALE && eventCache.containsStale(eventId)) {
+                return Mono.justOrEmpty(eventCache.getStale(eventId));
+            }
+            return Mono.error(e);
+        });
+    }
+
+    public Mono<Boolean> isEventExists(Long eventId) {
+        return getEvent(eventId)
+                .map(event -> true)
+                .defaultIfEmpty(false)
+                .onErrorResume(e -> denied("Chiamata evento fallita", e));
+    }
+
+    public Mono<Boolean> isEventInPast(Long eventId) {
+        return getEvent(eventId)
+                .map(EventDTO::isArchived)
+                .defaultIfEmpty(false)
+                .onErrorResume(e -> denied("Errore nel recuperare evento", e));
+    }
+
+    public Mono<Boolean> isUserOrganizerOfEvent(Long userId, Long eventId) {
+        return getEventForRead(eventId)
+                .map(event -> userId.equals(event.getOrganizerId()))
+                .defaultIfEmpty(false)
+                .onErrorResume(e -> denied("Chiamata fallita per organizer", e));
+    }
+
+    /**
+     * Come isUserOrganizerOfEvent, per le operazioni che modificano dati: evento letto con getEvent
+     * (niente valori scaduti) e, se l'Event service non risponde, il Mono fallisce (fail closed).
+     */
+    public Mono<Boolean> isUserOrganizerOfEventForWrite(Long userId, Long eventId) {
+        return getEvent(eventId)
+                .map(event -> userId.equals(event.getOrganizerId()))
+                .defaultIfEmpty(false);
+    }
+
+    public Mono<Boolean> hasUserBookedEvent(Long userId, Long eventId, String token) {
+        return fetchBooked(new BookingPair(userId, eventId), token)
+                .onErrorResume(e -> denied("Chiamata a BookingService fallita", e));
+    }
+
+    /**
+     * Prenotazioni di più coppie, nell'ordine della richiesta: blocchi di max-size coppie su
+     * /api/bookings/check/batch, GET singole se il Booking service non lo espone.
+     * Qui non c'è una finestra di raccolta come in BookingCheckClient: un errore di rete fa fallire il Mono.
+     */
+    public Mono<List<BookingCheck>> checkBookings(List<BookingPair> pairs, String token) {
+        List<BookingPair> distinct = new ArrayList<>(new LinkedHashSet<>(pairs));
+        List<List<BookingPair>> chunks = new ArrayList<>();
+        int size = Math.max(1, bookingBatchSize);
+        for (int from = 0; from < distinct.size(); from += size) {
+            chunks.add(distinct.subList(from, Math.min(from + size, distinct.size())));
+        }
+        return Flux.fromIterable(chunks)
+                .concatMap(chunk -> fetchBookingBatch(chunk, token))
+                .collectMap(BookingCheck::pair, BookingCheck::booked)
+                .map(results -> pairs.stream()
+                        .map(pair -> new BookingCheck(pair.userId(), pair.eventId(), results.getOrDefault(pair, false)))
+                        .toList());
+    }
+
+    private Flux<BookingCheck> fetchBookingBatch(List<BookingPair> pairs, String token) {
+        if (!bookingBatching || bookingBatchUnsupported) {
+            return fetchBookingsOneByOne(pairs, token);
+        }
+        return downstreamGuards.booking().callReactive(() -> bookingWebClient.post()
+                        .uri("/api/bookings/check/batch")
+                        .headers(headers -> headers.setBearerAuth(token))
+                        .bodyValue(pairs)
+                        .retrieve()
+                        .bodyToMono(CHECKS))
+                .flatMapMany(Flux::fromIterable)
+                .onErrorResume(e -> e instanceof WebClientResponseException.NotFound
+                        || e instanceof WebClientResponseException.MethodNotAllowed, e -> {
+                    bookingBatchUnsupported = true;
+                    log.warn("Il Booking service non espone /api/bookings/check/batch ({}): si passa alle verifiche singole",
+                            e.getMessage());
+                    return fetchBookingsOneByOne(pairs, token);
+                });
+    }
+
+    private Flux<BookingCheck> fetchBookingsOneByOne(List<BookingPair> pairs, String token) {
+        return Flux.fromIterable(pairs)
+                .flatMapSequential(pair -> fetchBooked(pair, token)
+                        .map(booked -> new BookingCheck(pair.userId(), pair.eventId(), booked)));
+    }
+
+    private Mono<Boolean> fetchBooked(BookingPair pair, String token) {
+        return downstreamGuards.booking().callReactive(() -> bookingWebClient.get()
+                        .uri(uri -> uri.path("/api/bookings/check")
+                                .queryParam("userId", pair.userId())
+                                .queryParam("eventId", pair.eventId())
+                                .build())
+                        .headers(headers -> headers.setBearerAuth(token))
+                        .retrieve()
+                        .bodyToMono(Boolean.class))
+                .map(Boolean.TRUE::equals)
+                .defaultIfEmpty(false);
+    }
+
+    private Mono<EventDTO> fetchEvent(Long eventId) {
+        return downstreamGuards.event().callReactive(() -> eventWebClient.get()
+                        .uri("/events/internal/{eventId}", eventId)
+                        .retrieve()
+                        .bodyToMono(EventDTO.class))
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty());
+    }
+
+    private static Mono<Boolean> denied(String message, Throwable e) {
+        errors.warn(message, e);
+        return Mono.just(false);
+    }
+}
@@ -0,0 +1,64 @@
+package com.dipartimento.reviewservice.reactive;
+
+import com.dipartimento.reviewservice.service.PreconditionRunner;
+import com.dipartimento.reviewservice.service.PreconditionRunner.Denial;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Equivalente non bloccante di PreconditionRunner: i controlli partono tutti insieme, al primo esito
+ * decisivo gli altri vengono cancellati, oltre la scadenza comune si risponde 503.
+ * Nessun pool di thread: le attese sono solo sottoscrizioni pendenti.
+ */
+@Component
+@Profile("reactive")
+public class ReactivePreconditions {
+
+    /**
+     * Controllo da superare; se fallisce la richiesta viene rifiutata con status e messaggio indicati.
+     */
+    public record Check(Mono<Boolean> test, HttpStatus deniedStatus, String deniedMessage) {}
+
+    private final Duration timeout;
+
+    public ReactivePreconditions(@Value("${review.checks.timeout:3s}") Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Rifiuto del primo controllo della lista che fallisce, oppure vuoto se passano tutti; come in
+     * PreconditionRunner l'ordine della lista decide la risposta. Un controllo che fallisce con un
+     * errore conta come rifiuto.
+     */
+    public Mono<Denial> firstDenial(List<Check> checks) {
+        // flatMapSequential: tutti sottoscritti subito, esiti emessi nell'ordine della lista
+        return Flux.fromIterable(checks)
+                .flatMapSequential(check -> passes(check.test())
+                        .filter(passed -> !passed)
+                        .map(passed -> new Denial(check.deniedStatus(), check.deniedMessage())))
+                .next()
+                .timeout(timeout, Mono.just(PreconditionRunner.TIMEOUT));
+    }
+
+    /**
+     * Vuoto appena un controllo risulta vero; il rifiuto indicato solo se falliscono tutti.
+     */
+    public Mono<Denial> requireAny(List<Mono<Boolean>> tests, HttpStatus deniedStatus, String deniedMessage) {
+        return Flux.fromIterable(tests)
+                .flatMap(ReactivePreconditions::passes)
+                .any(Boolean::booleanValue)
+                .flatMap(passed -> passed ? Mono.<Denial>empty() : Mono.just(new Denial(deniedStatus, deniedMessage)))
+                .timeout(timeout, Mono.just(PreconditionRunner.TIMEOUT));
+    }
+
+    private static Mono<Boolean> passes(Mono<Boolean> test) {
+        return test.defaultIfEmpty(false).onErrorReturn(false);
+    }
+}
@@ -0,0 +1,431 @@
+package com.dipartimento.reviewservice.reactive;
+
+import com.dipartimento.reviewservice.controller.ReviewController;
+import com.dipartimento.reviewservice.dto.BookingPair;
+import com.dipartimento.reviewservice.dto.RatingSummary;
+import com.dipartimento.reviewservice.dto.ReviewDTO;
+import com.dipartimento.reviewservice.dto.ReviewView;
+import com.dipartimento.reviewservice.model.Review;
+import com.dipartimento.reviewservice.security.AuthenticatedUser;
+import com.dipartimento.reviewservice.service.EventReviewsCache;
+import com.dipartimento.reviewservice.service.PreconditionRunner;
+import com.dipartimento.reviewservice.service.PreconditionRunner.Denial;
+import com.dipartimento.reviewservice.service.RatingSummaryService;
+import com.dipartimento.reviewservice.service.ReviewChangedEvent;
+import com.dipartimento.reviewservice.service.ReviewPurgeJobs;
+import com.dipartimento.reviewservice.service.ReviewVersionTracker;
+import com.dipartimento.reviewservice.service.ReviewWriteBehind;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+/**
+ * Stesso contratto /api/reviews di ReviewController (percorsi, status, messaggi, ETag) su WebFlux:
+ * chiamate ai servizi a valle con WebClient e letture/scritture con R2DBC, nessun thread fermo in attesa.
+ * Attivo con il profilo reactive, al posto di ReviewController.
+ *
+ * Restano bloccanti, e girano su boundedElastic, i componenti condivisi con l'API servlet che usano JPA:
+ * i listener di ReviewChangedEvent (riepiloghi), la coda write-behind e l'avvio dei job di cancellazione.
+ */
+@RestController
+@RequestMapping("/api/reviews")
+@Profile("reactive")
+public class ReactiveReviewController {
+
+    private final ReactiveReviewRepository repository;
+    private final ReactiveDownstreamClient downstream;
+    private final ReactivePreconditions preconditions;
+    private final ObjectMapper objectMapper;
+    private final RatingSummaryService ratingSummaryService;
+    private final ReviewWriteBehind writeBehind;
+    private final ReviewPurgeJobs purgeJobs;
+    private final ReviewVersionTracker versionTracker;
+    private final EventReviewsCache eventReviewsCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public ReactiveReviewController(ReactiveReviewRepository repository, ReactiveDownstreamClient downstream,
+                                    ReactivePreconditions preconditions, ObjectMapper objectMapper,
+                                    RatingSummaryService ratingSummaryService, ReviewWriteBehind writeBehind,
+                                    ReviewPurgeJobs purgeJobs, ReviewVersionTracker versionTracker,
+                                    EventReviewsCache eventReviewsCache, ApplicationEventPublisher eventPublisher) {
+        this.repository = repository;
+        this.downstream = downstream;
+        this.preconditions = preconditions;
+        this.objectMapper = objectMapper;
+        this.ratingSummaryService = ratingSummaryService;
+        this.writeBehind = writeBehind;
+        this.purgeJobs = purgeJobs;
+        this.versionTracker = versionTracker;
+        this.eventReviewsCache = eventReviewsCache;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<?>> createReview(@RequestBody ReviewDTO dto,
+                                                @RequestHeader("Authorization") String authHeader) {
+        if (!isBearer(authHeader)) {
+            return unauthorized();
+        }
+        String token = authHeader.substring(7);
+
+        return userOf(token)
+                .flatMap(user -> {
+                    if (dto.getEventId() == null) {
+                        return respond(HttpStatus.BAD_REQUEST, "eventId mancante");
+                    }
+                    Long userId = user.getUserId();
+                    Long eventId = dto.getEventId();
+                    return preconditions.firstDenial(List.of(
+                                    new ReactivePreconditions.Check(downstream.isEventExists(eventId),
+                                            HttpStatus.NOT_FOUND, "Evento non trovato"),
+                                    new ReactivePreconditions.Check(downstream.hasUserBookedEvent(userId, eventId, token),
+                                            HttpStatus.FORBIDDEN, "Non hai prenotato questo evento"),
+                                    new ReactivePreconditions.Check(downstream.isEventInPast(eventId),
+                                            HttpStatus.FORBIDDEN, "Puoi recensire solo a partire dal giorno successivo all'evento.")))
+                            .flatMap(ReactiveReviewController::deny)
+                            .switchIfEmpty(Mono.defer(() -> store(dto, userId)));
+                })
+                .switchIfEmpty(respond(HttpStatus.FORBIDDEN, "Utente non autorizzato"));
+    }
+
+    private Mono<ResponseEntity<?>> store(ReviewDTO dto, Long userId) {
+        if (writeBehind.isEnabled()) {
+            Review review = new Review();
+            review.setEventId(dto.getEventId());
+            review.setUserId(userId);
+            review.setRating(dto.getRating());
+            review.setComment(dto.getComment());
+            // submit può attendere fino a offer-timeout che si liberi posto nella coda
+            return blocking(() -> writeBehind.submit(review))
+                    .<ResponseEntity<?>>map(trackingId -> ResponseEntity.accepted()
+                            .location(URI.create("/api/reviews/submissions/" + trackingId))
+                            .body(Map.of("trackingId", trackingId, "status", ReviewWriteBehind.Status.QUEUED)))
+                    .switchIfEmpty(Mono.fromSupplier(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, "1")
+                            .body("Troppe recensioni in attesa, riprova tra poco")));
+        }
+
+        return repository.upsert(dto.getEventId(), userId, dto.getRating(), dto.getComment())
+                .flatMap(saved -> changed(saved.eventId(), saved.userId())
+                        .thenReturn(ResponseEntity.status(HttpStatus.CREATED).body(saved)));
+    }
+
+    @GetMapping("/submissions/{trackingId}")
+    public ResponseEntity<?> getSubmissionStatus(@PathVariable String trackingId) {
+        ReviewWriteBehind.Status status = writeBehind.getStatus(trackingId);
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Invio non trovato");
+        }
+        return ResponseEntity.ok(Map.of("trackingId", trackingId, "status", status));
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<List<ReviewView>>> getAllReviews(@RequestParam(required = false) Long after,
+                                                                @RequestParam(defaultValue = "" + ReviewController.DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = Math.max(1, Math.min(limit, ReviewController.MAX_PAGE_SIZE));
+        return repository.findViewsAfter(after != null ? after : 0L, pageSize)
+                .collectList()
+                .map(page -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if (page.size() == pageSize) {
+                        response.header(ReviewController.NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).id()));
+                    }
+                    return response.body(page);
+                });
+    }
+
+    /**
+     * Esportazione completa in NDJSON: le righe arrivano dal database solo quanto il client riesce a leggerle.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ReviewView> streamAllReviews(@RequestParam(required = false) Long after) {
+        return repository.streamAll(after);
+    }
+
+    @GetMapping("/event/{eventId}")
+    public Mono<ResponseEntity<?>> getReviewsByEvent(@PathVariable Long eventId,
+                                                     @RequestHeader("Authorization") String authHeader,
+                                                     ServerWebExchange exchange) {
+        if (!isBearer(authHeader)) {
+            return unauthorized();
+        }
+        String token = authHeader.substring(7);
+
+        return userOf(token)
+                .flatMap(user -> {
+                    Mono<Denial> denial = user.hasRole("ORGANIZER") ? Mono.empty() : preconditions.requireAny(List.of(
+                            downstream.isUserOrganizerOfEvent(user.getUserId(), eventId),
+                            downstream.hasUserBookedEvent(user.getUserId(), eventId, token)
+                    ), HttpStatus.FORBIDDEN, "Accesso negato alle recensioni");
+
+                    // GET condizionale solo dopo i controlli, come in ReviewController
+                    return denial
+                            .flatMap(ReactiveReviewController::deny)
+                            .switchIfEmpty(Mono.defer(() -> {
+                                ReviewVersionTracker.Version version = versionTracker.forEvent(eventId);
+                                return eventReviewsJson(eventId, version.key())
+                                        .flatMap(listing -> conditional(exchange, listing, version));
+                            }));
+                })
+                .switchIfEmpty(Mono.defer(() -> exchange.isNotModified()
+                        ? Mono.empty()
+                        : respond(HttpStatus.FORBIDDEN, "Utente non autorizzato")));
+    }
+
+    private Mono<EventReviewsCache.Listing> eventReviewsJson(Long eventId, String version) {
+        EventReviewsCache.Listing cached = eventReviewsCache.getIfPresent(eventId, version);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return repository.findViewsByEventId(eventId)
+                .collectList()
+                .map(reviews -> eventReviewsCache.put(eventId, version, toJson(reviews)));
+    }
+
+    private Mono<EventReviewsCache.Listing> userReviewsJson(Long userId, String version) {
+        EventReviewsCache.Listing cached = eventReviewsCache.getIfPresentForUser(userId, version);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return repository.findViewsByUserId(userId)
+                .collectList()
+                .map(reviews -> eventReviewsCache.putForUser(userId, version, toJson(reviews)));
+    }
+
+    /**
+     * 200 con l'elenco, oppure vuoto (304 già impostato sull'exchange) se l'ETag del client corrisponde.
+     */
+    private static Mono<ResponseEntity<?>> conditional(ServerWebExchange exchange, EventReviewsCache.Listing listing,
+                                                       ReviewVersionTracker.Version version) {
+        if (exchange.checkNotModified(listing.etag(), Instant.ofEpochMilli(version.lastModified()))) {
+            return Mono.empty();
+        }
+        return Mono.just(ResponseEntity.ok()
+                .cacheControl(ReviewController.REVALIDATE)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(listing.json()));
+    }
+
+    @GetMapping("/event/{eventId}/summary")
+    public Mono<RatingSummary> getRatingSummary(@PathVariable Long eventId) {
+        // Di norma una lettura dalla mappa; solo prima della ricostruzione iniziale interroga il database
+        return blocking(() -> ratingSummaryService.getSummary(eventId));
+    }
+
+    @GetMapping("/summary")
+    public Mono<ResponseEntity<?>> getRatingSummaries(@RequestParam List<Long> eventIds) {
+        if (eventIds.size() > ReviewController.MAX_SUMMARY_BATCH) {
+            return respond(HttpStatus.BAD_REQUEST, "Al massimo " + ReviewController.MAX_SUMMARY_BATCH + " eventi per richiesta");
+        }
+        return blocking(() -> ResponseEntity.ok(ratingSummaryService.getSummaries(eventIds).values()));
+    }
+
+    @PostMapping("/eligibility")
+    public Mono<ResponseEntity<?>> checkBookings(@RequestBody List<BookingPair> pairs,
+                                                 @RequestHeader("Authorization") String authHeader) {
+        if (!isBearer(authHeader)) {
+            return unauthorized();
+        }
+
+        String token = authHeader.substring(7);
+        return userOf(token)
+                .flatMap(user -> {
+                    if (pairs.size() > ReviewController.MAX_BOOKING_CHECKS) {
+                        return respond(HttpStatus.BAD_REQUEST, "Al massimo " + ReviewController.MAX_BOOKING_CHECKS + " coppie per richiesta");
+                    }
+                    if (pairs.stream().anyMatch(pair -> pair.userId() == null || pair.eventId() == null)) {
+                        return respond(HttpStatus.BAD_REQUEST, "userId ed eventId obbligatori");
+                    }
+                    // Prenotazioni di altri utenti: solo l'organizzatore, per gli eventi che organizza (come in ReviewController)
+                    List<Long> othersEvents = pairs.stream()
+                            .filter(pair -> !user.getUserId().equals(pair.userId()))
+                            .map(BookingPair::eventId)
+                            .distinct()
+                            .toList();
+                    if (!othersEvents.isEmpty() && !user.hasRole("ORGANIZER")) {
+                        return respond(HttpStatus.FORBIDDEN, "Non autorizzato");
+                    }
+                    Mono<Denial> denial = othersEvents.isEmpty() ? Mono.empty() : preconditions.firstDenial(othersEvents.stream()
+                            .map(eventId -> new ReactivePreconditions.Check(downstream.isUserOrganizerOfEvent(user.getUserId(), eventId),
+                                    HttpStatus.FORBIDDEN, "Non autorizzato"))
+                            .toList());
+                    return denial
+                            .flatMap(ReactiveReviewController::deny)
+                            .switchIfEmpty(Mono.defer(() -> downstream.checkBookings(pairs, token)
+                                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                                    .onErrorResume(e -> deny(PreconditionRunner.TIMEOUT))));
+                })
+                .switchIfEmpty(respond(HttpStatus.FORBIDDEN, "Utente non autorizzato"));
+    }
+
+    @DeleteMapping("/user/{userId}/event/{eventId}")
+    public Mono<ResponseEntity<?>> deleteReviewsByUserIdAndEvent(@PathVariable Long userId,
+                                                                 @PathVariable Long eventId,
+                                                                 @RequestHeader("Authorization") String authHeader) {
+        if (!isBearer(authHeader)) {
+            return unauthorized();
+        }
+
+        return userOf(authHeader.substring(7))
+                .filter(user -> userId.equals(user.getUserId()) || user.hasRole("ORGANIZER"))
+                .flatMap(user -> repository.deleteByUserIdAndEventId(userId, eventId)
+                        .then(changed(eventId, userId))
+                        .<ResponseEntity<?>>thenReturn(ResponseEntity.ok(Map.of("message", "Recensioni eliminate"))))
+                .switchIfEmpty(respond(HttpStatus.FORBIDDEN, "Non autorizzato"));
+    }
+
+    @DeleteMapping("/user/{userId}")
+    public Mono<ResponseEntity<?>> deleteAllReviewsOfUser(@PathVariable Long userId,
+                                                          @RequestHeader("Authorization") String authHeader) {
+        if (!isBearer(authHeader)) {
+            return unauthorized();
+        }
+
+        return userOf(authHeader.substring(7))
+                .filter(user -> userId.equals(user.getUserId()))
+                .flatMap(user -> blocking(() -> purgeJobs.purgeUser(userId, user.getUserId())))
+                .map(ReactiveReviewController::purgeAccepted)
+                .switchIfEmpty(respond(HttpStatus.FORBIDDEN, "Non autorizzato"));
+    }
+
+    @DeleteMapping("/event/{eventId}")
+    public Mono<ResponseEntity<?>> deleteAllReviewsOfEvent(@PathVariable Long eventId,
+                                                           @RequestHeader("Authorization") String authHeader) {
+        if (!isBearer(authHeader)) {
+            return unauthorized();
+        }
+
+        // Cancellazione irreversibile: mai autorizzata da un evento in cache scaduto, 503 se l'Event service non risponde
+        Denial notOrganizer = new Denial(HttpStatus.FORBIDDEN, "Solo l'organizzatore può cancellare le recensioni dell'evento");
+        return userOf(authHeader.substring(7))
+                .flatMap(user -> downstream.isUserOrganizerOfEventForWrite(user.getUserId(), eventId)
+                        .map(organizer -> organizer ? Optional.<Denial>empty() : Optional.of(notOrganizer))
+                        .onErrorReturn(Optional.of(PreconditionRunner.TIMEOUT))
+                        .flatMap(denial -> denial.isPresent() ? deny(denial.get())
+                                : blocking(() -> purgeJobs.purgeEvent(eventId, user.getUserId())).map(ReactiveReviewController::purgeAccepted)))
+                .switchIfEmpty(deny(notOrganizer));
+    }
+
+    @GetMapping("/purge-jobs/{jobId}")
+    public Mono<ResponseEntity<?>> getPurgeJob(@PathVariable String jobId,
+                                               @RequestHeader("Authorization") String authHeader) {
+        if (!isBearer(authHeader)) {
+            return unauthorized();
+        }
+
+        return userOf(authHeader.substring(7))
+                .mapNotNull(user -> purgeJobs.getJob(jobId) instanceof ReviewPurgeJobs.Job job
+                        && job.getRequestedBy().equals(user.getUserId()) ? job : null)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.ok(job.snapshot()))
+                .switchIfEmpty(respond(HttpStatus.NOT_FOUND, "Job non trovato"));
+    }
+
+    @GetMapping("/me")
+    public Mono<ResponseEntity<?>> getMyReviews(@RequestHeader("Authorization") String authHeader,
+                                                ServerWebExchange exchange) {
+        if (!isBearer(authHeader)) {
+            return unauthorized();
+        }
+
+        return userOf(authHeader.substring(7))
+                .flatMap(user -> {
+                    ReviewVersionTracker.Version version = versionTracker.forUser(user.getUserId());
+                    return userReviewsJson(user.getUserId(), version.key())
+                            .flatMap(listing -> conditional(exchange, listing, version));
+                })
+                .switchIfEmpty(Mono.defer(() -> exchange.isNotModified()
+                        ? Mono.empty()
+                        : respond(HttpStatus.FORBIDDEN, "Utente non autorizzato")));
+    }
+
+    @PutMapping("/user/{userId}/event/{eventId}")
+    public Mono<ResponseEntity<?>> updateReview(@PathVariable Long userId,
+                                                @PathVariable Long eventId,
+                                                @RequestBody ReviewDTO dto,
+                                                @RequestHeader("Authorization") String authHeader) {
+        if (!isBearer(authHeader)) {
+            return unauthorized();
+        }
+
+        return userOf(authHeader.substring(7))
+                .filter(user -> userId.equals(user.getUserId()) || user.hasRole("ORGANIZER"))
+                .flatMap(user -> repository.findByUserIdAndEventId(userId, eventId)
+                        .flatMap(review -> repository.update(review.id(), dto.getRating(), dto.getComment())
+                                .then(changed(eventId, userId))
+                                .<ResponseEntity<?>>thenReturn(ResponseEntity.ok(new ReviewView(review.id(),
+                                        review.eventId(), review.userId(), dto.getRating(), dto.getComment()))))
+                        .switchIfEmpty(respond(HttpStatus.NOT_FOUND, "Recensione non trovata")))
+                .switchIfEmpty(respond(HttpStatus.FORBIDDEN, "Non autorizzato"));
+    }
+
+    /**
+     * Utente del token con uno userId, vuoto altrimenti.
+     */
+    private Mono<AuthenticatedUser> userOf(String token) {
+        return downstream.resolveUser(token).filter(user -> user.getUserId() != null);
+    }
+
+    /**
+     * Notifica la modifica ai listener (riepiloghi, versioni, cache, altre istanze): alcuni leggono con JPA,
+     * quindi girano fuori dall'event loop. La risposta parte dopo, come nell'API servlet.
+     */
+    private Mono<Void> changed(Long eventId, Long userId) {
+        return Mono.fromRunnable(() -> eventPublisher.publishEvent(new ReviewChangedEvent(eventId, userId)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static boolean isBearer(String authHeader) {
+        return authHeader != null && authHeader.startsWith("Bearer ");
+    }
+
+    private static Mono<ResponseEntity<?>> unauthorized() {
+        return respond(HttpStatus.UNAUTHORIZED, "Token mancante o malformato");
+    }
+
+    private static Mono<ResponseEntity<?>> deny(Denial denial) {
+        return respond(denial.status(), denial.message());
+    }
+
+    private static Mono<ResponseEntity<?>> respond(HttpStatus status, String message) {
+        return Mono.just(ResponseEntity.status(status).body(message));
+    }
+
+    private static ResponseEntity<?> purgeAccepted(ReviewPurgeJobs.Job job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/reviews/purge-jobs/" + job.getId()))
+                .body(job.snapshot());
+    }
+}
@@ -0,0 +1,136 @@
+package com.dipartimento.reviewservice.reactive;
+
+import com.dipartimento.reviewservice.dto.ReviewView;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Accesso alla tabella reviews via R2DBC per l'API reattiva: stesse query di ReviewRepository
+ * (proiezioni ReviewView) e lo stesso upsert di ReviewRepositoryCustomImpl, senza bloccare thread.
+ * Lo schema resta gestito da Flyway sulla connessione JDBC.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveReviewRepository {
+
+    private static final String VIEW = "SELECT id, event_id, user_id, rating, comment FROM reviews ";
+
+    private static final String POSTGRES_UPSERT_SQL =
+            "INSERT INTO reviews (event_id, user_id, rating, comment) VALUES (:eventId, :userId, :rating, :comment) " +
+            "ON CONFLICT (user_id, event_id) DO UPDATE SET rating = EXCLUDED.rating, comment = EXCLUDED.comment " +
+            "RETURNING id, event_id, user_id, rating, comment";
+
+    // H2 non supporta ON CONFLICT DO UPDATE: MERGE equivalente, la riga salvata si legge dalla FINAL TABLE
+    private static final String H2_UPSERT_SQL =
+            "SELECT id, event_id, user_id, rating, comment FROM FINAL TABLE (" +
+            "MERGE INTO reviews r USING (VALUES (CAST(:eventId AS BIGINT), CAST(:userId AS BIGINT), CAST(:rating AS INTEGER), CAST(:comment AS VARCHAR(255)))) " +
+            "AS s (event_id, user_id, rating, comment) " +
+            "ON r.user_id = s.user_id AND r.event_id = s.event_id " +
+            "WHEN MATCHED THEN UPDATE SET rating = s.rating, comment = s.comment " +
+            "WHEN NOT MATCHED THEN INSERT (event_id, user_id, rating, comment) VALUES (s.event_id, s.user_id, s.rating, s.comment))";
+
+    private final DatabaseClient databaseClient;
+    private final String upsertSql;
+
+    @Value("${review.stream.fetch-size:500}")
+    private int fetchSize;
+
+    @Autowired
+    public ReactiveReviewRepository(DatabaseClient databaseClient, ConnectionFactory connectionFactory) {
+        this.databaseClient = databaseClient;
+        this.upsertSql = upsertSql(connectionFactory.getMetadata().getName());
+    }
+
+    public Flux<ReviewView> findViewsByEventId(Long eventId) {
+        return databaseClient.sql(VIEW + "WHERE event_id = :eventId")
+                .bind("eventId", eventId)
+                .map(ReactiveReviewRepository::mapView)
+                .all();
+    }
+
+    public Flux<ReviewView> findViewsByUserId(Long userId) {
+        return databaseClient.sql(VIEW + "WHERE user_id = :userId")
+                .bind("userId", userId)
+                .map(ReactiveReviewRepository::mapView)
+                .all();
+    }
+
+    public Flux<ReviewView> findViewsAfter(Long afterId, int limit) {
+        return databaseClient.sql(VIEW + "WHERE id > :afterId ORDER BY id LIMIT :limit")
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactiveReviewRepository::mapView)
+                .all();
+    }
+
+    /**
+     * Tutte le recensioni con id > afterId in ordine di id, lette a blocchi di fetch-size righe
+     * man mano che il consumatore le richiede (backpressure fino al database).
+     */
+    public Flux<ReviewView> streamAll(Long afterId) {
+        return databaseClient.sql(VIEW + "WHERE id > :afterId ORDER BY id")
+                .bind("afterId", afterId != null ? afterId : 0L)
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(ReactiveReviewRepository::mapView)
+                .all();
+    }
+
+    public Mono<ReviewView> findByUserIdAndEventId(Long userId, Long eventId) {
+        return databaseClient.sql(VIEW + "WHERE user_id = :userId AND event_id = :eventId")
+                .bind("userId", userId)
+                .bind("eventId", eventId)
+                .map(ReactiveReviewRepository::mapView)
+                .first();
+    }
+
+    /**
+     * Crea o sostituisce la recensione dell'utente per l'evento con un solo statement atomico.
+     */
+    public Mono<ReviewView> upsert(Long eventId, Long userId, int rating, String comment) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(upsertSql)
+                .bind("eventId", eventId)
+                .bind("userId", userId)
+                .bind("rating", rating);
+        spec = comment != null ? spec.bind("comment", comment) : spec.bindNull("comment", String.class);
+        return spec.map(ReactiveReviewRepository::mapView).one();
+    }
+
+    public Mono<Long> update(Long id, int rating, String comment) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("UPDATE reviews SET rating = :rating, comment = :comment WHERE id = :id")
+                .bind("id", id)
+                .bind("rating", rating);
+        spec = comment != null ? spec.bind("comment", comment) : spec.bindNull("comment", String.class);
+        return spec.fetch().rowsUpdated();
+    }
+
+    public Mono<Long> deleteByUserIdAndEventId(Long userId, Long eventId) {
+        return databaseClient.sql("DELETE FROM reviews WHERE user_id = :userId AND event_id = :eventId")
+                .bind("userId", userId)
+                .bind("eventId", eventId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static String upsertSql(String product) {
+        if ("PostgreSQL".equalsIgnoreCase(product)) {
+            return POSTGRES_UPSERT_SQL;
+        }
+        if ("H2".equalsIgnoreCase(product)) {
+            return H2_UPSERT_SQL;
+        }
+        throw new IllegalStateException("Upsert delle recensioni non supportato per il database " + product);
+    }
+
+    private static ReviewView mapView(Readable row) {
+        Integer rating = row.get("rating", Integer.class);
+        return new ReviewView(row.get("id", Long.class), row.get("event_id", Long.class), row.get("user_id", Long.class),
+                rating != null ? rating : 0, row.get("comment", String.class));
+    }
+}
@@ -0,0 +1,13 @@
+package com.dipartimento.reviewservice.repository;
+
+/**
+ * Proiezione dell'aggregato (eventId, rating) -> numero di recensioni.
+ */
+public interface RatingCount {
+
+    Long getEventId();
+
+    Integer getRating();
+
+    Long getTotal();
+}
@@ -1,31 +1,77 @@
 package com.dipartimento.reviewservice.repository;
 
+import com.dipartimento.reviewservice.dto.ReviewView;
 import com.dipartimento.reviewservice.model.Review;
-import jakarta.transaction.Transactional;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 @Repository
-public interface ReviewRepository extends JpaRepository<Review, Long> {
+public interface ReviewRepository extends JpaRepository<Review, Long>, ReviewRepositoryCustom {
 
     List<Review> findByEventId(Long eventId);
     List<Review> findByUserId(Long userId);
 
+    // Letture per gli endpoint GET: proiezioni (niente entità gestite) in transazioni read-only,
+    // con fetch size esplicita per non fare un round trip ogni 10 righe sugli eventi con molte recensioni
+    String VIEW = "SELECT new com.dipartimento.reviewservice.dto.ReviewView(r.id, r.eventId, r.userId, r.rating, r.comment) FROM Review r ";
+
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(VIEW + "WHERE r.eventId = :eventId")
+    List<ReviewView> findViewsByEventId(@Param("eventId") Long eventId);
+
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(VIEW + "WHERE r.userId = :userId")
+    List<ReviewView> findViewsByUserId(@Param("userId") Long userId);
+
+    // Paginazione a cursore (keyset): id > afterId, già ordinate per id
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(VIEW + "WHERE r.id > :afterId ORDER BY r.id")
+    List<ReviewView> findViewsAfter(@Param("afterId") Long afterId, Limit limit);
+
     @Query("SELECT r FROM Review r WHERE r.userId = :userId AND r.eventId = :eventId")
     List<Review> findByUserIdAndEventId(@Param("userId") Long userId,
                                         @Param("eventId") Long eventId);
 
+    @Query("SELECT r.eventId AS eventId, r.rating AS rating, COUNT(r) AS total FROM Review r GROUP BY r.eventId, r.rating")
+    List<RatingCount> countRatingsByEvent();
+
+    @Query("SELECT r.eventId AS eventId, r.rating AS rating, COUNT(r) AS total FROM Review r WHERE r.eventId = :eventId GROUP BY r.eventId, r.rating")
+    List<RatingCount> countRatingsForEvent(@Param("eventId") Long eventId);
+
+    @Query("SELECT DISTINCT r.eventId FROM Review r WHERE r.userId = :userId")
+    List<Long> findEventIdsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT COUNT(r) FROM Review r WHERE r.userId = :userId")
+    long countByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT COUNT(r) FROM Review r WHERE r.eventId = :eventId")
+    long countByEventId(@Param("eventId") Long eventId);
+
+    // Cancellazioni con un solo DELETE bulk: niente caricamento delle entità nel persistence context
     @Transactional
-    void deleteByUserId(Long userId);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Review r WHERE r.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
 
     boolean existsByUserIdAndEventId(Long userId, Long eventId);
 
     @Transactional
-    void deleteByUserIdAndEventId(Long userId, Long eventId);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Review r WHERE r.userId = :userId AND r.eventId = :eventId")
+    int deleteByUserIdAndEventId(@Param("userId") Long userId, @Param("eventId") Long eventId);
 
 
 
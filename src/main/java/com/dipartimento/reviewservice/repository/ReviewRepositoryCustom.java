@@ -0,0 +1,40 @@
+package com.dipartimento.reviewservice.repository;
+
+import com.dipartimento.reviewservice.model.Review;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Operazioni su reviews scritte a mano (JDBC) perché non esprimibili bene con Spring Data.
+ */
+public interface ReviewRepositoryCustom {
+
+    /**
+     * Legge tutte le recensioni con id > afterId in ordine di id, tramite un cursore JDBC forward-only:
+     * le righe vengono passate al consumer man mano, senza caricare la tabella in memoria.
+     */
+    void streamAll(Long afterId, Consumer<Review> consumer);
+
+    /**
+     * Inserisce la recensione oppure, se esiste già per (userId, eventId), ne aggiorna voto e commento.
+     * Un solo statement atomico (niente exists + delete + insert) che restituisce la riga salvata.
+     */
+    Review upsert(Review review);
+
+    /**
+     * Upsert di più recensioni in un unico batch JDBC (stessa semantica di upsert, senza rileggere le righe).
+     */
+    void upsertAll(List<Review> reviews);
+
+    /**
+     * Cancella al massimo limit recensioni dell'utente (le più vecchie per id) e restituisce quante ne ha cancellate.
+     * Ogni chiamata è una transazione breve: usata dai job di cancellazione a blocchi.
+     */
+    int deleteChunkByUserId(Long userId, int limit);
+
+    /**
+     * Come deleteChunkByUserId, per tutte le recensioni di un evento.
+     */
+    int deleteChunkByEventId(Long eventId, int limit);
+}
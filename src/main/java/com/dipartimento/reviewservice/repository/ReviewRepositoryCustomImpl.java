@@ -0,0 +1,125 @@
+package com.dipartimento.reviewservice.repository;
+
+import com.dipartimento.reviewservice.model.Review;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class ReviewRepositoryCustomImpl implements ReviewRepositoryCustom {
+
+    private static final String STREAM_SQL =
+            "SELECT id, event_id, user_id, rating, comment FROM reviews WHERE id > ? ORDER BY id";
+
+    private static final String POSTGRES_UPSERT_SQL =
+            "INSERT INTO reviews (event_id, user_id, rating, comment) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (user_id, event_id) DO UPDATE SET rating = EXCLUDED.rating, comment = EXCLUDED.comment";
+
+    private static final String POSTGRES_RETURNING = " RETURNING id, event_id, user_id, rating, comment";
+
+    // H2 non supporta ON CONFLICT DO UPDATE: MERGE equivalente
+    private static final String H2_UPSERT_SQL =
+            "MERGE INTO reviews r USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS INTEGER), CAST(? AS VARCHAR(255)))) " +
+            "AS s (event_id, user_id, rating, comment) " +
+            "ON r.user_id = s.user_id AND r.event_id = s.event_id " +
+            "WHEN MATCHED THEN UPDATE SET rating = s.rating, comment = s.comment " +
+            "WHEN NOT MATCHED THEN INSERT (event_id, user_id, rating, comment) VALUES (s.event_id, s.user_id, s.rating, s.comment)";
+
+    // DELETE con LIMIT non è standard: si limita la sottoquery sugli id (usa gli indici su user_id / event_id)
+    private static final String DELETE_CHUNK_BY_USER_SQL =
+            "DELETE FROM reviews WHERE id IN (SELECT id FROM reviews WHERE user_id = ? ORDER BY id LIMIT ?)";
+
+    private static final String DELETE_CHUNK_BY_EVENT_SQL =
+            "DELETE FROM reviews WHERE id IN (SELECT id FROM reviews WHERE event_id = ? ORDER BY id LIMIT ?)";
+
+    private record UpsertSql(String returning, String batch) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile UpsertSql upsertSql;
+
+    @Value("${review.stream.fetch-size:500}")
+    private int fetchSize;
+
+    @Autowired
+    public ReviewRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Transazione read-only: su PostgreSQL il fetch a blocchi (cursore lato server) richiede autocommit disattivato
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(Long afterId, Consumer<Review> consumer) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(STREAM_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, afterId != null ? afterId : 0L);
+            return ps;
+        }, (ResultSet rs) -> consumer.accept(mapReview(rs)));
+    }
+
+    @Override
+    public Review upsert(Review review) {
+        return jdbcTemplate.queryForObject(upsertSql().returning(), (rs, rowNum) -> mapReview(rs),
+                review.getEventId(), review.getUserId(), review.getRating(), review.getComment());
+    }
+
+    @Override
+    public void upsertAll(List<Review> reviews) {
+        if (reviews.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(upsertSql().batch(), reviews, reviews.size(), (ps, review) -> {
+            ps.setLong(1, review.getEventId());
+            ps.setLong(2, review.getUserId());
+            ps.setInt(3, review.getRating());
+            ps.setString(4, review.getComment());
+        });
+    }
+
+    @Override
+    @Transactional
+    public int deleteChunkByUserId(Long userId, int limit) {
+        return jdbcTemplate.update(DELETE_CHUNK_BY_USER_SQL, userId, limit);
+    }
+
+    @Override
+    @Transactional
+    public int deleteChunkByEventId(Long eventId, int limit) {
+        return jdbcTemplate.update(DELETE_CHUNK_BY_EVENT_SQL, eventId, limit);
+    }
+
+    private UpsertSql upsertSql() {
+        UpsertSql sql = upsertSql;
+        if (sql == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+            if ("PostgreSQL".equalsIgnoreCase(product)) {
+                sql = new UpsertSql(POSTGRES_UPSERT_SQL + POSTGRES_RETURNING, POSTGRES_UPSERT_SQL);
+            } else if ("H2".equalsIgnoreCase(product)) {
+                // La riga salvata si legge dalla FINAL TABLE nello stesso statement
+                sql = new UpsertSql("SELECT id, event_id, user_id, rating, comment FROM FINAL TABLE (" + H2_UPSERT_SQL + ")", H2_UPSERT_SQL);
+            } else {
+                throw new IllegalStateException("Upsert delle recensioni non supportato per il database " + product);
+            }
+            upsertSql = sql;
+        }
+        return sql;
+    }
+
+    static Review mapReview(ResultSet rs) throws SQLException {
+        Review review = new Review();
+        review.setId(rs.getLong("id"));
+        review.setEventId(rs.getLong("event_id"));
+        review.setUserId(rs.getLong("user_id"));
+        review.setRating(rs.getInt("rating"));
+        review.setComment(rs.getString("comment"));
+        return review;
+    }
+}
@@ -0,0 +1,39 @@
+package com.dipartimento.reviewservice.security;
+
+/**
+ * Utente autenticato della richiesta corrente, ricavato una sola volta dal token
+ * (claims verificati localmente oppure risposta di /auth/me in modalità remota).
+ */
+public class AuthenticatedUser {
+
+    private final Long userId;
+    private final String username;
+    private final String role;
+
+    public AuthenticatedUser(Long userId, String username, String role) {
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public boolean hasRole(String role) {
+        return role != null && role.equalsIgnoreCase(this.role);
+    }
+
+    @Override
+    public String toString() {
+        return "AuthenticatedUser{userId=" + userId + ", username='" + username + "', role='" + role + "'}";
+    }
+}
@@ -5,6 +5,7 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -15,6 +16,7 @@ import java.io.IOException;
 import java.util.List;
 
 @Component
+@Profile("!reactive")
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     @Override
@@ -26,13 +28,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
 
-            if (JwtUtil.validateToken(token)) {
-                String username = JwtUtil.extractUsername(token);
-                String role = JwtUtil.extractUserRole(token);
+            AuthenticatedUser user = JwtUtil.extractAuthenticatedUser(token);
 
-                SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + role);
+            if (user != null) {
+                // Principal risolto una volta sola dai claims verificati; il token resta come credenziale
+                // così ReviewServ può riconoscere la stessa richiesta senza richiamare /auth/me
+                SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + user.getRole());
                 UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(username, null, List.of(authority));
+                        new UsernamePasswordAuthenticationToken(user, token, List.of(authority));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
         }
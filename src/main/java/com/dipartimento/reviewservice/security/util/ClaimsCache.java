@@ -0,0 +1,89 @@
+package com.dipartimento.reviewservice.security.util;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache limitata token -> claims già verificati.
+ * Una voce non sopravvive mai oltre il ttl configurato né oltre l'exp del token.
+ * Solo i token validi vengono memorizzati, così token casuali non riempiono la cache.
+ */
+public class ClaimsCache {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private record Entry(Claims claims, long expiresAt) {}
+
+    public ClaimsCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, Clock.systemUTC());
+    }
+
+    ClaimsCache(int maxSize, Duration ttl, Clock clock) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    public Claims get(String token) {
+        if (maxSize <= 0) {
+            return null;
+        }
+        Entry entry = entries.get(token);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() <= clock.millis()) {
+            entries.remove(token, entry);
+            return null;
+        }
+        return entry.claims();
+    }
+
+    public void put(String token, Claims claims) {
+        if (maxSize <= 0 || ttlMillis <= 0) {
+            return;
+        }
+        long now = clock.millis();
+        long expiresAt = now + ttlMillis;
+        Date exp = claims.getExpiration();
+        if (exp != null) {
+            expiresAt = Math.min(expiresAt, exp.getTime());
+        }
+        if (expiresAt <= now) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict(now);
+        }
+        entries.put(token, new Entry(claims, expiresAt));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    // Prima rimuove le voci scadute; se non basta libera circa un decimo della cache
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt() <= now);
+        int toRemove = entries.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<String> it = entries.keySet().iterator();
+        while (toRemove > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+            toRemove--;
+        }
+    }
+}
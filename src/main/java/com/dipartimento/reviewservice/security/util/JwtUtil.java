@@ -1,10 +1,11 @@
 package com.dipartimento.reviewservice.security.util;
 
+import com.dipartimento.reviewservice.security.AuthenticatedUser;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 
 import java.security.Key;
-import java.util.Date;
+import java.time.Duration;
 
 public class JwtUtil {
 
@@ -14,9 +15,40 @@ public class JwtUtil {
 
     private static final Key key = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
 
+    // Il parser è immutabile e thread-safe: lo costruiamo una volta sola
+    private static final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+
+    private static volatile ClaimsCache claimsCache = new ClaimsCache(10_000, Duration.ofMinutes(5));
+
+    /**
+     * Sostituisce la cache dei claims (dimensione massima e ttl); maxSize <= 0 la disabilita.
+     */
+    public static void configureCache(int maxSize, Duration ttl) {
+        claimsCache = new ClaimsCache(maxSize, ttl);
+    }
+
+    public static ClaimsCache getClaimsCache() {
+        return claimsCache;
+    }
+
+    /**
+     * Restituisce i claims verificati del token: la firma HMAC viene controllata
+     * solo la prima volta, le chiamate successive leggono dalla cache.
+     * Lancia JwtException / IllegalArgumentException se il token non è valido.
+     */
+    public static Claims parseClaims(String token) {
+        ClaimsCache cache = claimsCache;
+        Claims claims = cache.get(token);
+        if (claims == null) {
+            claims = parser.parseClaimsJws(token).getBody();
+            cache.put(token, claims);
+        }
+        return claims;
+    }
+
     public static boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+            parseClaims(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
@@ -24,22 +56,31 @@ public class JwtUtil {
     }
 
     public static String extractUsername(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build()
-                .parseClaimsJws(token).getBody().getSubject();
+        return parseClaims(token).getSubject();
     }
 
     public static String extractUserRole(String token) {
-        return (String) Jwts.parserBuilder().setSigningKey(key).build()
-                .parseClaimsJws(token).getBody().get("role");
+        return (String) parseClaims(token).get("role");
     }
 
     public static Long extractUserId(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return userIdOf(parseClaims(token));
+    }
+
+    /**
+     * Costruisce l'utente dai claims verificati; null se il token non è valido.
+     */
+    public static AuthenticatedUser extractAuthenticatedUser(String token) {
+        Claims claims;
+        try {
+            claims = parseClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        return new AuthenticatedUser(userIdOf(claims), claims.getSubject(), (String) claims.get("role"));
+    }
 
+    private static Long userIdOf(Claims claims) {
         Object userIdObj = claims.get("userId");
 
         if (userIdObj instanceof Integer) {
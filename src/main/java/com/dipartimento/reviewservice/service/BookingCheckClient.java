@@ -0,0 +1,318 @@
+package com.dipartimento.reviewservice.service;
+
+import com.dipartimento.reviewservice.config.DownstreamProperties;
+import com.dipartimento.reviewservice.dto.BookingCheck;
+import com.dipartimento.reviewservice.dto.BookingPair;
+import com.dipartimento.reviewservice.service.resilience.DownstreamGuard;
+import com.dipartimento.reviewservice.service.resilience.DownstreamGuards;
+import com.dipartimento.reviewservice.service.resilience.DownstreamUnavailableException;
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Verifiche di prenotazione verso il Booking service.
+ *
+ * Una verifica parte subito se per il suo token non c'è già una chiamata in corso; quelle che arrivano
+ * mentre una chiamata è in corso vengono raccolte per window in un'unica POST /api/bookings/check/batch
+ * (al massimo max-size coppie, una coppia ripetuta si chiede una volta). Così la verifica isolata non
+ * aspetta la finestra, e sotto carico le chiamate si accorpano.
+ * La verifica che parte subito e il batch riempito fino a max-size partono sul thread del chiamante; solo
+ * i batch chiusi dalla finestra passano dai thread di invio, tanti quanti le chiamate ammesse dal bulkhead
+ * del Booking service (virtual thread se spring.threads.virtual.enabled): il batching non abbassa la
+ * concorrenza verso il servizio.
+ * Il token viaggia come Authorization della chiamata, per cui token diversi non finiscono nello stesso batch.
+ * Se il Booking service non espone l'endpoint batch (404/405) si torna alle GET singole.
+ */
+@Component
+public class BookingCheckClient {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingCheckClient.class);
+
+    private static final ParameterizedTypeReference<List<BookingCheck>> CHECKS = new ParameterizedTypeReference<>() {};
+    private static final ContextSnapshotFactory CONTEXT = ContextSnapshotFactory.builder().build();
+
+    private static final class Batch {
+        private final String token;
+        private final Map<BookingPair, CompletableFuture<Boolean>> pending = new LinkedHashMap<>();
+        // Contesto (traccia) della richiesta che ha aperto il batch: la chiamata batch compare lì
+        private final ContextSnapshot context = CONTEXT.captureAll();
+        private ScheduledFuture<?> flush;
+
+        private Batch(String token) {
+            this.token = token;
+        }
+    }
+
+    private final RestTemplate restTemplate;
+    private final DownstreamGuard guard;
+    private final String checkUrl;
+    private final String batchUrl;
+    private final boolean batching;
+    private final long windowNanos;
+    private final int maxBatchSize;
+
+    // Batch ancora aperti, uno per token, e chiamate in corso per token
+    private final Map<String, Batch> open = new HashMap<>();
+    private final Map<String, Integer> inFlight = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final ScheduledExecutorService timer =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("booking-batch-"));
+    private final ExecutorService sender;
+
+    private volatile boolean batchUnsupported;
+
+    private final AtomicLong singleCalls = new AtomicLong();
+    private final AtomicLong batchCalls = new AtomicLong();
+    private final AtomicLong batchedPairs = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    @Autowired
+    public BookingCheckClient(@Qualifier("bookingRestTemplate") RestTemplate restTemplate, DownstreamGuards guards,
+                              DownstreamProperties downstream,
+                              @Value("${review.booking-batch.enabled:true}") boolean batching,
+                              @Value("${review.booking-batch.window:5ms}") Duration window,
+                              @Value("${review.booking-batch.max-size:100}") int maxBatchSize,
+                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this(restTemplate, guards.booking(), downstream.getBooking().getBaseUrl(), batching, window, maxBatchSize,
+                downstream.getBooking().getResilience().getMaxConcurrentCalls(), virtualThreads);
+    }
+
+    BookingCheckClient(RestTemplate restTemplate, DownstreamGuard guard, String baseUrl, boolean batching,
+                       Duration window, int maxBatchSize, int senders, boolean virtualThreads) {
+        this.restTemplate = restTemplate;
+        this.guard = guard;
+        this.checkUrl = baseUrl + "/api/bookings/check";
+        this.batchUrl = baseUrl + "/api/bookings/check/batch";
+        this.batching = batching;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        if (virtualThreads) {
+            this.sender = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("booking-batch-send-", 0).factory());
+        } else {
+            // Senza coda, come il bulkhead: con tutti i thread occupati il batch viene rifiutato (vedi dispatch),
+            // mai eseguito sul thread del timer
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(senders, senders, 60, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), new CustomizableThreadFactory("booking-batch-send-"));
+            pool.allowCoreThreadTimeOut(true);
+            this.sender = pool;
+        }
+    }
+
+    /**
+     * true se l'utente ha prenotato l'evento. Il future fallisce se il Booking service non risponde.
+     */
+    public CompletableFuture<Boolean> check(Long userId, Long eventId, String token) {
+        BookingPair pair = new BookingPair(userId, eventId);
+        if (!batching || batchUnsupported) {
+            try {
+                return CompletableFuture.completedFuture(fetchOne(pair, token));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        CompletableFuture<Boolean> result;
+        Batch ready = null;
+        lock.lock();
+        try {
+            Batch batch = open.get(token);
+            if (batch == null && !inFlight.containsKey(token)) {
+                // Nessuna chiamata in corso per il token: inutile aspettare la finestra
+                batch = new Batch(token);
+                result = new CompletableFuture<>();
+                batch.pending.put(pair, result);
+                ready = sending(batch);
+            } else {
+                if (batch == null) {
+                    Batch created = new Batch(token);
+                    created.flush = timer.schedule(() -> flush(created), windowNanos, TimeUnit.NANOSECONDS);
+                    open.put(token, created);
+                    batch = created;
+                }
+                result = batch.pending.get(pair);
+                if (result != null) {
+                    coalesced.incrementAndGet();
+                    return result;
+                }
+                result = new CompletableFuture<>();
+                batch.pending.put(pair, result);
+                if (batch.pending.size() >= maxBatchSize) {
+                    open.remove(token);
+                    batch.flush.cancel(false);
+                    ready = sending(batch);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (ready != null) {
+            // Il chiamante aspetterebbe comunque questo batch: lo invia lui
+            send(ready);
+        }
+        return result;
+    }
+
+    /**
+     * Verifica di molte coppie in una volta (dashboard, moderazione): blocchi di max-size coppie per chiamata.
+     * Ogni chiamata inviata conta in RequestLookups della richiesta corrente.
+     */
+    public Map<BookingPair, Boolean> checkAll(Collection<BookingPair> pairs, String token) {
+        RequestLookups lookups = RequestLookups.current();
+        List<BookingPair> distinct = new ArrayList<>(new LinkedHashSet<>(pairs));
+        Map<BookingPair, Boolean> results = new HashMap<>();
+        for (int from = 0; from < distinct.size(); from += maxBatchSize) {
+            results.putAll(fetchBatch(distinct.subList(from, Math.min(from + maxBatchSize, distinct.size())), token,
+                    () -> lookups.countCall("booking")));
+        }
+        return results;
+    }
+
+    public Map<String, Object> stats() {
+        long batches = batchCalls.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("batching", batching && !batchUnsupported);
+        stats.put("singleCalls", singleCalls.get());
+        stats.put("batchCalls", batches);
+        stats.put("avgBatchSize", batches == 0 ? 0.0 : (double) batchedPairs.get() / batches);
+        stats.put("coalesced", coalesced.get());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        sender.shutdown();
+    }
+
+    private void flush(Batch batch) {
+        lock.lock();
+        try {
+            // Già partito perché pieno
+            if (!open.remove(batch.token, batch)) {
+                return;
+            }
+            sending(batch);
+        } finally {
+            lock.unlock();
+        }
+        dispatch(batch);
+    }
+
+    // Da chiamare con il lock: da qui alla fine di dispatch il token ha una chiamata in corso
+    private Batch sending(Batch batch) {
+        inFlight.merge(batch.token, 1, Integer::sum);
+        return batch;
+    }
+
+    private void sent(Batch batch) {
+        lock.lock();
+        try {
+            inFlight.computeIfPresent(batch.token, (token, calls) -> calls > 1 ? calls - 1 : null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dispatch(Batch batch) {
+        try {
+            sender.execute(() -> send(batch));
+        } catch (RejectedExecutionException e) {
+            sent(batch);
+            rejected.incrementAndGet();
+            DownstreamUnavailableException failure = new DownstreamUnavailableException("booking", "coda di invio delle verifiche piena");
+            batch.pending.values().forEach(future -> future.completeExceptionally(failure));
+        }
+    }
+
+    private void send(Batch batch) {
+        try (ContextSnapshot.Scope scope = batch.context.setThreadLocals()) {
+            Map<BookingPair, Boolean> results;
+            try {
+                // Le verifiche accorpate le conta già chi le ha chieste (ReviewServ), una per verifica
+                results = fetchBatch(new ArrayList<>(batch.pending.keySet()), batch.token, () -> {});
+            } finally {
+                // Prima di completare i future: la verifica successiva del chiamante parte subito
+                sent(batch);
+            }
+            batch.pending.forEach((pair, future) -> future.complete(results.getOrDefault(pair, false)));
+        } catch (RuntimeException e) {
+            batch.pending.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    // onCall: eseguito per ogni chiamata HTTP inviata (batch o singola)
+    private Map<BookingPair, Boolean> fetchBatch(List<BookingPair> pairs, String token, Runnable onCall) {
+        Map<BookingPair, Boolean> results = new HashMap<>();
+        if (batching && !batchUnsupported) {
+            try {
+                onCall.run();
+                batchCalls.incrementAndGet();
+                batchedPairs.addAndGet(pairs.size());
+                List<BookingCheck> checks = guard.call(() -> restTemplate.exchange(batchUrl, HttpMethod.POST,
+                        new HttpEntity<>(pairs, authorization(token)), CHECKS)).getBody();
+                if (checks != null) {
+                    checks.forEach(check -> results.put(check.pair(), check.booked()));
+                }
+                return results;
+            } catch (HttpClientErrorException.NotFound | HttpClientErrorException.MethodNotAllowed e) {
+                batchUnsupported = true;
+                log.warn("Il Booking service non espone {} ({}): si passa alle verifiche singole", batchUrl, e.getStatusCode());
+            }
+        }
+        for (BookingPair pair : pairs) {
+            onCall.run();
+            results.put(pair, fetchOne(pair, token));
+        }
+        return results;
+    }
+
+    private boolean fetchOne(BookingPair pair, String token) {
+        singleCalls.incrementAndGet();
+        Boolean booked = guard.call(() -> restTemplate.exchange(checkUrl + "?userId={userId}&eventId={eventId}", HttpMethod.GET,
+                new HttpEntity<>(authorization(token)), Boolean.class, pair.userId(), pair.eventId())).getBody();
+        return Boolean.TRUE.equals(booked);
+    }
+
+    private static HttpHeaders authorization(String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        return headers;
+    }
+}
@@ -0,0 +1,243 @@
+package com.dipartimento.reviewservice.service;
+
+import com.dipartimento.reviewservice.dto.EventDTO;
+import com.dipartimento.reviewservice.dto.EventStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache condivisa dei metadati evento (EventDTO) per eventId.
+ * Eventi archiviati: ttl lungo (non cambiano più); eventi attivi: ttl breve;
+ * eventi inesistenti: cache negativa. Più miss concorrenti sullo stesso evento
+ * producono una sola chiamata all'Event service.
+ *
+ * Un caricamento in corso quando l'evento viene invalidato non finisce in cache: invalidate lo stacca
+ * da inFlight (il future di ogni caricamento fa da generazione della chiave), la richiesta successiva
+ * ne avvia uno nuovo e il valore letto prima dell'invalidazione non viene salvato.
+ */
+@Component
+public class EventCache {
+
+    /**
+     * Carica l'evento dal servizio remoto: null se non esiste, eccezione se la chiamata fallisce.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        EventDTO load(Long eventId);
+    }
+
+    /**
+     * Come Loader, per i client non bloccanti: il future si completa con null se l'evento non esiste.
+     */
+    @FunctionalInterface
+    public interface AsyncLoader {
+        CompletableFuture<EventDTO> load(Long eventId);
+    }
+
+    private record Entry(EventDTO event, long expiresAt) {
+        boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+    private final AtomicLong loadNanosTotal = new AtomicLong();
+    private final AtomicLong loadNanosMax = new AtomicLong();
+
+    @Value("${review.event-cache.max-size:10000}")
+    private int maxSize = 10_000;
+
+    @Value("${review.event-cache.archived-ttl:1h}")
+    private Duration archivedTtl = Duration.ofHours(1);
+
+    @Value("${review.event-cache.active-ttl:30s}")
+    private Duration activeTtl = Duration.ofSeconds(30);
+
+    @Value("${review.event-cache.negative-ttl:10s}")
+    private Duration negativeTtl = Duration.ofSeconds(10);
+
+    /**
+     * Restituisce l'evento (null se non esiste), caricandolo con il loader in caso di miss.
+     * Gli errori del loader non vengono messi in cache e sono rilanciati a tutti i chiamanti in attesa.
+     */
+    public EventDTO get(Long eventId, Loader loader) {
+        Entry entry = entries.get(eventId);
+        if (entry != null && !entry.isExpired(System.currentTimeMillis())) {
+            hits.incrementAndGet();
+            return entry.event();
+        }
+        misses.incrementAndGet();
+
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = inFlight.putIfAbsent(eventId, mine);
+        if (existing != null) {
+            return await(existing).event();
+        }
+
+        try {
+            Entry loaded = load(eventId, loader, mine);
+            mine.complete(loaded);
+            return loaded.event();
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(eventId, mine);
+        }
+    }
+
+    /**
+     * Versione non bloccante di get (API reattiva): stessa cache e stesso single-flight, per cui un miss
+     * già in corso, anche avviato da get, viene condiviso invece di produrre un'altra chiamata remota.
+     */
+    public CompletableFuture<EventDTO> getAsync(Long eventId, AsyncLoader loader) {
+        Entry entry = entries.get(eventId);
+        if (entry != null && !entry.isExpired(System.currentTimeMillis())) {
+            hits.incrementAndGet();
+            return CompletableFuture.completedFuture(entry.event());
+        }
+        misses.incrementAndGet();
+
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = inFlight.putIfAbsent(eventId, mine);
+        if (existing != null) {
+            return existing.thenApply(Entry::event);
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<EventDTO> loading;
+        try {
+            loading = loader.load(eventId);
+        } catch (RuntimeException e) {
+            loading = CompletableFuture.failedFuture(e);
+        }
+        loading.whenComplete((event, error) -> {
+            recordLoad(start);
+            if (error != null) {
+                loadFailures.incrementAndGet();
+                mine.completeExceptionally(error);
+            } else {
+                Entry loaded = new Entry(event, System.currentTimeMillis() + ttlFor(event).toMillis());
+                store(eventId, loaded, mine);
+                mine.complete(loaded);
+            }
+            inFlight.remove(eventId, mine);
+        });
+        return mine.thenApply(Entry::event);
+    }
+
+    /**
+     * Ultimo valore noto anche se scaduto (usato come fallback quando l'Event service non risponde).
+     */
+    public EventDTO getStale(Long eventId) {
+        Entry entry = entries.get(eventId);
+        return entry != null ? entry.event() : null;
+    }
+
+    public boolean containsStale(Long eventId) {
+        return entries.containsKey(eventId);
+    }
+
+    public void invalidate(Long eventId) {
+        inFlight.remove(eventId);
+        entries.remove(eventId);
+    }
+
+    public void invalidateAll() {
+        inFlight.clear();
+        entries.clear();
+    }
+
+    public Map<String, Object> stats() {
+        long loadCount = loads.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("loads", loadCount);
+        stats.put("loadFailures", loadFailures.get());
+        stats.put("loadAvgMillis", loadCount == 0 ? 0.0 : loadNanosTotal.get() / 1_000_000.0 / loadCount);
+        stats.put("loadMaxMillis", loadNanosMax.get() / 1_000_000.0);
+        return stats;
+    }
+
+    private Entry load(Long eventId, Loader loader, CompletableFuture<Entry> load) {
+        long start = System.nanoTime();
+        try {
+            EventDTO event = loader.load(eventId);
+            Entry entry = new Entry(event, System.currentTimeMillis() + ttlFor(event).toMillis());
+            store(eventId, entry, load);
+            return entry;
+        } catch (RuntimeException e) {
+            loadFailures.incrementAndGet();
+            throw e;
+        } finally {
+            recordLoad(start);
+        }
+    }
+
+    private void recordLoad(long start) {
+        long elapsed = System.nanoTime() - start;
+        loads.incrementAndGet();
+        loadNanosTotal.addAndGet(elapsed);
+        loadNanosMax.accumulateAndGet(elapsed, Math::max);
+    }
+
+    private Duration ttlFor(EventDTO event) {
+        if (event == null) {
+            return negativeTtl;
+        }
+        if (event.isArchived() || event.getStatus() == EventStatus.ARCHIVED) {
+            return archivedTtl;
+        }
+        return activeTtl;
+    }
+
+    // load: il caricamento che ha prodotto entry; se non è più quello in inFlight l'evento è stato
+    // invalidato nel frattempo e entry non va salvata
+    private void store(Long eventId, Entry entry, CompletableFuture<Entry> load) {
+        if (maxSize <= 0 || inFlight.get(eventId) != load) {
+            return;
+        }
+        if (entries.size() >= maxSize && !entries.containsKey(eventId)) {
+            long now = System.currentTimeMillis();
+            entries.values().removeIf(e -> e.isExpired(now));
+            Iterator<Long> it = entries.keySet().iterator();
+            while (entries.size() >= maxSize && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        entries.put(eventId, entry);
+        // Invalidazione arrivata tra il controllo iniziale e put: si toglie solo questo valore
+        if (inFlight.get(eventId) != load) {
+            entries.remove(eventId, entry);
+        }
+    }
+
+    private static Entry await(CompletableFuture<Entry> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
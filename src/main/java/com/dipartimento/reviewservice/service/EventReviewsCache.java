@@ -0,0 +1,214 @@
+package com.dipartimento.reviewservice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Elenchi delle recensioni per evento (e per utente, GET /me) già serializzati in JSON, per gli elenchi
+ * molto letti: una hit restituisce i byte pronti, senza query né Jackson, e il GET condizionale
+ * risponde 304 senza toccare il database.
+ *
+ * LRU a peso: il limite è sulla somma dei byte in cache (max-bytes), gli elenchi più grandi di
+ * max-entry-bytes non vengono messi in cache. Ogni scrittura sulle recensioni di un evento
+ * (ReviewChangedEvent) ne invalida l'elenco e quello dell'autore; in più ogni voce ricorda la versione
+ * (ReviewVersionTracker) con cui è stata costruita e vale solo finché la versione non cambia,
+ * così un caricamento in corso durante una scrittura non lascia in cache dati vecchi.
+ */
+@Component
+public class EventReviewsCache {
+
+    /**
+     * JSON dell'elenco con il suo ETag, calcolato una volta sola quando l'elenco entra in cache.
+     */
+    public record Listing(byte[] json, String etag) {
+
+        public static Listing of(byte[] json) {
+            return new Listing(json, ReviewVersionTracker.etagOf(json));
+        }
+    }
+
+    // Elenco di un evento ('e') o di un utente ('u')
+    private record Key(char kind, Long id) {}
+
+    private record Entry(String version, Listing listing) {}
+
+    // Stima dell'overhead per voce (chiave, Entry, array, nodo della mappa) oltre ai byte del JSON
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+
+    // access-order: la prima voce è la meno usata di recente
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private long bytes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    private long rejectedTooLarge;
+
+    public EventReviewsCache(@Value("${review.event-reviews-cache.max-bytes:64MB}") DataSize maxBytes,
+                             @Value("${review.event-reviews-cache.max-entry-bytes:4MB}") DataSize maxEntryBytes) {
+        this.maxBytes = maxBytes.toBytes();
+        this.maxEntryBytes = Math.min(maxEntryBytes.toBytes(), this.maxBytes);
+    }
+
+    /**
+     * JSON dell'elenco dell'evento alla versione indicata; in caso di miss lo produce con loader
+     * (query + serializzazione, fuori dal lock) e lo mette in cache.
+     */
+    public Listing get(Long eventId, String version, Supplier<byte[]> loader) {
+        return get(new Key('e', eventId), version, loader);
+    }
+
+    /**
+     * Come get, per l'elenco delle recensioni dell'utente (versione da ReviewVersionTracker.forUser).
+     */
+    public Listing getForUser(Long userId, String version, Supplier<byte[]> loader) {
+        return get(new Key('u', userId), version, loader);
+    }
+
+    /**
+     * JSON in cache alla versione indicata, oppure null (conta come hit o miss, come get).
+     * Per i chiamanti non bloccanti (API reattiva), che producono l'elenco da sé e lo registrano con put.
+     */
+    public Listing getIfPresent(Long eventId, String version) {
+        return getIfPresent(new Key('e', eventId), version);
+    }
+
+    public Listing getIfPresentForUser(Long userId, String version) {
+        return getIfPresent(new Key('u', userId), version);
+    }
+
+    public Listing put(Long eventId, String version, byte[] json) {
+        return put(new Key('e', eventId), version, json);
+    }
+
+    public Listing putForUser(Long userId, String version, byte[] json) {
+        return put(new Key('u', userId), version, json);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent event) {
+        if (event.getEventId() != null) {
+            invalidate(event.getEventId());
+        }
+        if (event.getUserId() != null) {
+            invalidate(new Key('u', event.getUserId()));
+        }
+    }
+
+    public void invalidate(Long eventId) {
+        invalidate(new Key('e', eventId));
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            invalidations += entries.size();
+            entries.clear();
+            bytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        lock.lock();
+        try {
+            long lookups = hits + misses;
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("entries", entries.size());
+            stats.put("bytes", bytes);
+            stats.put("maxBytes", maxBytes);
+            stats.put("hits", hits);
+            stats.put("misses", misses);
+            stats.put("hitRatio", lookups == 0 ? 0.0 : (double) hits / lookups);
+            stats.put("evictions", evictions);
+            stats.put("invalidations", invalidations);
+            stats.put("rejectedTooLarge", rejectedTooLarge);
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Listing get(Key key, String version, Supplier<byte[]> loader) {
+        Listing cached = getIfPresent(key, version);
+        if (cached != null) {
+            return cached;
+        }
+        return put(key, version, loader.get());
+    }
+
+    private Listing getIfPresent(Key key, String version) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.version().equals(version)) {
+                hits++;
+                return entry.listing();
+            }
+            misses++;
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Listing put(Key key, String version, byte[] json) {
+        Listing listing = Listing.of(json);
+        put(key, new Entry(version, listing));
+        return listing;
+    }
+
+    private void invalidate(Key key) {
+        lock.lock();
+        try {
+            Entry removed = entries.remove(key);
+            if (removed != null) {
+                bytes -= weight(removed);
+                invalidations++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(Key key, Entry entry) {
+        long weight = weight(entry);
+        lock.lock();
+        try {
+            if (weight > maxEntryBytes) {
+                rejectedTooLarge++;
+                return;
+            }
+            Entry previous = entries.put(key, entry);
+            bytes += weight - (previous != null ? weight(previous) : 0);
+
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                Map.Entry<Key, Entry> eldest = it.next();
+                it.remove();
+                bytes -= weight(eldest.getValue());
+                evictions++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long weight(Entry entry) {
+        return entry.listing().json().length + ENTRY_OVERHEAD;
+    }
+}
@@ -0,0 +1,162 @@
+package com.dipartimento.reviewservice.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Esegue in parallelo i controlli indipendenti verso i servizi a valle (evento, prenotazione...)
+ * su un pool dedicato, con una scadenza comune: la latenza diventa quella della chiamata più lenta
+ * invece della somma. Al primo esito decisivo le chiamate ancora in corso vengono cancellate.
+ */
+@Component
+public class PreconditionRunner {
+
+    /**
+     * Controllo da superare; se fallisce la richiesta viene rifiutata con status e messaggio indicati.
+     */
+    public record Check(Supplier<Boolean> test, HttpStatus deniedStatus, String deniedMessage) {}
+
+    public record Denial(HttpStatus status, String message) {}
+
+    public static final Denial TIMEOUT = new Denial(HttpStatus.SERVICE_UNAVAILABLE, "Servizio non disponibile, riprova più tardi");
+
+    private final ExecutorService executor;
+    private final long timeoutMillis;
+
+    // I controlli vedono la richiesta che li ha lanciati: RequestLookups condivise e principal già verificato
+    private final RequestContextTaskDecorator requestContext = new RequestContextTaskDecorator();
+
+    public PreconditionRunner(@Value("${review.checks.pool-size:32}") int poolSize,
+                              @Value("${review.checks.queue-capacity:1000}") int queueCapacity,
+                              @Value("${review.checks.timeout:3s}") Duration timeout,
+                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            // Un virtual thread per controllo: la concorrenza verso ogni servizio è già limitata
+            // dal bulkhead e dal pool HTTP, non serve un pool di thread dimensionato a mano
+            this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("review-check-", 0).factory());
+        } else {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("review-check-"),
+                    // Pool saturo: il controllo gira sul thread della richiesta invece di essere scartato
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            pool.allowCoreThreadTimeOut(true);
+            this.executor = pool;
+        }
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    /**
+     * Esegue tutti i controlli in parallelo; restituisce il rifiuto del primo controllo della lista
+     * che fallisce, oppure null se passano tutti. Un controllo che lancia eccezione conta come rifiuto.
+     *
+     * L'ordine della lista decide la risposta, come se i controlli girassero uno dopo l'altro: il rifiuto
+     * di un controllo vale solo quando tutti quelli prima sono passati (un evento inesistente dà sempre
+     * 404, anche se il controllo sulla prenotazione fallisce prima).
+     */
+    public Denial firstDenial(List<Check> checks) {
+        if (checks.isEmpty()) {
+            return null;
+        }
+        CompletableFuture<Denial> result = new CompletableFuture<>();
+        Boolean[] outcomes = new Boolean[checks.size()];
+        ReentrantLock outcomesLock = new ReentrantLock();
+        List<Future<?>> running = new ArrayList<>(checks.size());
+
+        for (int i = 0; i < checks.size(); i++) {
+            int index = i;
+            Check check = checks.get(i);
+            running.add(executor.submit(requestContext.decorate(() -> {
+                boolean passed = passes(check.test());
+                outcomesLock.lock();
+                try {
+                    outcomes[index] = passed;
+                    for (int j = 0; j < outcomes.length; j++) {
+                        if (outcomes[j] == null) {
+                            return;   // un controllo precedente non ha ancora un esito
+                        }
+                        if (!outcomes[j]) {
+                            result.complete(new Denial(checks.get(j).deniedStatus(), checks.get(j).deniedMessage()));
+                            return;
+                        }
+                    }
+                    result.complete(null);
+                } finally {
+                    outcomesLock.unlock();
+                }
+            })));
+        }
+        return await(result, running);
+    }
+
+    /**
+     * Esegue i controlli in parallelo e concede l'accesso al primo che risulta vero;
+     * restituisce il rifiuto indicato solo se falliscono tutti.
+     */
+    public Denial requireAny(List<Supplier<Boolean>> tests, HttpStatus deniedStatus, String deniedMessage) {
+        Denial denied = new Denial(deniedStatus, deniedMessage);
+        if (tests.isEmpty()) {
+            return denied;
+        }
+        CompletableFuture<Denial> result = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(tests.size());
+        List<Future<?>> running = new ArrayList<>(tests.size());
+
+        for (Supplier<Boolean> test : tests) {
+            running.add(executor.submit(requestContext.decorate(() -> {
+                if (passes(test)) {
+                    result.complete(null);
+                } else if (remaining.decrementAndGet() == 0) {
+                    result.complete(denied);
+                }
+            })));
+        }
+        return await(result, running);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static boolean passes(Supplier<Boolean> test) {
+        try {
+            return Boolean.TRUE.equals(test.get());
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private Denial await(CompletableFuture<Denial> result, List<Future<?>> running) {
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return TIMEOUT;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return TIMEOUT;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            running.forEach(future -> future.cancel(true));
+        }
+    }
+}
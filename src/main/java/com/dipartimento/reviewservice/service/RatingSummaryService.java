@@ -0,0 +1,135 @@
+package com.dipartimento.reviewservice.service;
+
+import com.dipartimento.reviewservice.dto.RatingSummary;
+import com.dipartimento.reviewservice.repository.RatingCount;
+import com.dipartimento.reviewservice.repository.ReviewRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Riepiloghi dei voti per evento tenuti in memoria: ricostruiti all'avvio con una sola query aggregata
+ * e aggiornati per singolo evento dopo ogni scrittura. La lettura è un accesso alla mappa.
+ */
+@Service
+public class RatingSummaryService {
+
+    /**
+     * Riepilogo di un evento con il numero della lettura dal DB che l'ha prodotto; summary null: nessuna
+     * recensione (resta come segnaposto, così una lettura più vecchia non fa ricomparire il riepilogo).
+     */
+    private record Slot(long ticket, RatingSummary summary) {}
+
+    private final ReviewRepository reviewRepository;
+
+    private final Map<Long, Slot> summaries = new ConcurrentHashMap<>();
+    // Numerazione delle letture dal DB (per evento o complete), preso prima della query: tra due risultati
+    // per lo stesso evento vale quello con il numero più alto, cioè letto più tardi
+    private final AtomicLong tickets = new AtomicLong();
+    private volatile boolean loaded;
+
+    @Autowired
+    public RatingSummaryService(ReviewRepository reviewRepository) {
+        this.reviewRepository = reviewRepository;
+    }
+
+    public RatingSummary getSummary(Long eventId) {
+        Slot slot = summaries.get(eventId);
+        if (slot != null) {
+            return slot.summary() != null ? slot.summary() : RatingSummary.empty(eventId);
+        }
+        if (!loaded) {
+            // Prima che la ricostruzione iniziale sia terminata calcoliamo il singolo evento dal DB
+            return refresh(eventId);
+        }
+        return RatingSummary.empty(eventId);
+    }
+
+    public Map<Long, RatingSummary> getSummaries(Collection<Long> eventIds) {
+        Map<Long, RatingSummary> result = new LinkedHashMap<>();
+        for (Long eventId : eventIds) {
+            result.put(eventId, getSummary(eventId));
+        }
+        return result;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long ticket = tickets.incrementAndGet();
+        // Gli aggiornamenti per evento letti dopo l'inizio della query restano: sono più recenti
+        loadAll().forEach((eventId, summary) -> store(eventId, ticket, summary));
+        loaded = true;
+    }
+
+    /**
+     * Ricostruzione completa che sostituisce anche i riepiloghi già presenti: usata quando
+     * delle invalidazioni da altre istanze potrebbero essere andate perse.
+     */
+    public void reload() {
+        long ticket = tickets.incrementAndGet();
+        Map<Long, RatingSummary> fresh = loadAll();
+        summaries.keySet().forEach(eventId -> {
+            if (!fresh.containsKey(eventId)) {
+                store(eventId, ticket, null);
+            }
+        });
+        fresh.forEach((eventId, summary) -> store(eventId, ticket, summary));
+    }
+
+    private Map<Long, RatingSummary> loadAll() {
+        Map<Long, List<RatingCount>> byEvent = new HashMap<>();
+        for (RatingCount count : reviewRepository.countRatingsByEvent()) {
+            byEvent.computeIfAbsent(count.getEventId(), id -> new ArrayList<>()).add(count);
+        }
+        Map<Long, RatingSummary> result = new HashMap<>();
+        byEvent.forEach((eventId, counts) -> result.put(eventId, summarize(eventId, counts)));
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent event) {
+        if (event.getEventId() != null) {
+            refresh(event.getEventId());
+        }
+    }
+
+    private RatingSummary refresh(Long eventId) {
+        long ticket = tickets.incrementAndGet();
+        RatingSummary summary = summarize(eventId, reviewRepository.countRatingsForEvent(eventId));
+        store(eventId, ticket, summary.getCount() == 0 ? null : summary);
+        return summary;
+    }
+
+    // Confronto e scrittura atomici per evento: un risultato letto prima non sostituisce mai uno letto dopo
+    private void store(Long eventId, long ticket, RatingSummary summary) {
+        summaries.compute(eventId, (id, current) ->
+                current == null || current.ticket() < ticket ? new Slot(ticket, summary) : current);
+    }
+
+    private static RatingSummary summarize(Long eventId, List<RatingCount> counts) {
+        long[] histogram = new long[5];
+        long count = 0;
+        long sum = 0;
+        for (RatingCount row : counts) {
+            int rating = row.getRating() != null ? row.getRating() : 0;
+            long total = row.getTotal() != null ? row.getTotal() : 0;
+            count += total;
+            sum += (long) rating * total;
+            if (rating >= 1 && rating <= 5) {
+                histogram[rating - 1] += total;
+            }
+        }
+        return new RatingSummary(eventId, histogram, count, sum);
+    }
+}
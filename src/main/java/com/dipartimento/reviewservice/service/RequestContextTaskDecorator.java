@@ -0,0 +1,42 @@
+package com.dipartimento.reviewservice.service;
+
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Porta sul thread che esegue il task gli attributi della richiesta e il contesto di sicurezza
+ * del thread che lo ha creato, così i controlli in parallelo condividono le RequestLookups della richiesta
+ * e il principal già verificato, insieme allo span corrente (le chiamate dei controlli restano nella traccia
+ * della richiesta). Alla fine ripristina quelli precedenti (con CallerRunsPolicy il thread può essere quello
+ * della richiesta stessa).
+ */
+public class RequestContextTaskDecorator implements TaskDecorator {
+
+    private static final ContextSnapshotFactory CONTEXT = ContextSnapshotFactory.builder().build();
+
+    @Override
+    public Runnable decorate(Runnable task) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        // Ancora sul thread della richiesta: le RequestLookups esistono prima che i task partano
+        RequestLookups.current();
+        SecurityContext security = SecurityContextHolder.getContext();
+        ContextSnapshot context = CONTEXT.captureAll();
+        return () -> {
+            RequestAttributes previousAttributes = RequestContextHolder.getRequestAttributes();
+            SecurityContext previousSecurity = SecurityContextHolder.getContext();
+            RequestContextHolder.setRequestAttributes(attributes);
+            SecurityContextHolder.setContext(security);
+            try (ContextSnapshot.Scope scope = context.setThreadLocals()) {
+                task.run();
+            } finally {
+                RequestContextHolder.setRequestAttributes(previousAttributes);
+                SecurityContextHolder.setContext(previousSecurity);
+            }
+        };
+    }
+}
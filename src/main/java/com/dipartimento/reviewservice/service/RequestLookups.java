@@ -0,0 +1,125 @@
+package com.dipartimento.reviewservice.service;
+
+import com.dipartimento.reviewservice.dto.BookingPair;
+import com.dipartimento.reviewservice.dto.EventDTO;
+import com.dipartimento.reviewservice.security.AuthenticatedUser;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Esiti delle ricerche verso i servizi a valle già fatte nella richiesta HTTP corrente: utente del token,
+ * eventi e prenotazioni. Ogni risorsa distinta si chiede una sola volta per richiesta, anche quando
+ * la cercano insieme più controlli di PreconditionRunner; gli errori non vengono ricordati.
+ * Conta inoltre le chiamate remote effettive per servizio (auth, event, booking).
+ *
+ * Fuori da una richiesta (job di cancellazione, write-behind) ogni chiamata a current() dà un'istanza nuova,
+ * quindi non si ricorda nulla.
+ *
+ * L'istanza si crea sul thread della richiesta: RequestContextTaskDecorator la crea prima di passare i
+ * controlli ad altri thread, che la trovano già pronta. Per questo current() non ha bisogno di lock.
+ */
+public final class RequestLookups {
+
+    private static final String ATTRIBUTE = RequestLookups.class.getName();
+
+    private record UserKey(String token) {}
+
+    private record EventKey(Long eventId) {}
+
+    private record BookingKey(String token, BookingPair pair) {}
+
+    private final Map<Object, CompletableFuture<Object>> results = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+    /**
+     * Le ricerche della richiesta corrente, create al primo uso sul thread della richiesta.
+     */
+    public static RequestLookups current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return new RequestLookups();
+        }
+        try {
+            if (attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof RequestLookups lookups) {
+                return lookups;
+            }
+            RequestLookups lookups = new RequestLookups();
+            attributes.setAttribute(ATTRIBUTE, lookups, RequestAttributes.SCOPE_REQUEST);
+            return lookups;
+        } catch (IllegalStateException e) {
+            // Richiesta già conclusa: resta solo un controllo cancellato ancora in corso
+            return new RequestLookups();
+        }
+    }
+
+    public AuthenticatedUser user(String token, Supplier<AuthenticatedUser> lookup) {
+        return memoize(new UserKey(token), lookup);
+    }
+
+    public EventDTO event(Long eventId, Supplier<EventDTO> lookup) {
+        return memoize(new EventKey(eventId), lookup);
+    }
+
+    public boolean booking(String token, BookingPair pair, Supplier<Boolean> lookup) {
+        return Boolean.TRUE.equals(memoize(new BookingKey(token, pair), lookup));
+    }
+
+    /**
+     * Esito già noto della verifica di prenotazione, null se non ancora chiesto (o ancora in corso).
+     */
+    public Boolean knownBooking(String token, BookingPair pair) {
+        CompletableFuture<Object> result = results.get(new BookingKey(token, pair));
+        return result != null && result.isDone() && !result.isCompletedExceptionally() ? (Boolean) result.join() : null;
+    }
+
+    public void rememberBooking(String token, BookingPair pair, boolean booked) {
+        results.putIfAbsent(new BookingKey(token, pair), CompletableFuture.completedFuture(booked));
+    }
+
+    /**
+     * Da chiamare per ogni chiamata remota effettiva verso il servizio indicato.
+     */
+    public void countCall(String service) {
+        calls.computeIfAbsent(service, name -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public int totalCalls() {
+        return calls.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    public Map<String, Integer> calls() {
+        Map<String, Integer> snapshot = new TreeMap<>();
+        calls.forEach((service, count) -> snapshot.put(service, count.get()));
+        return snapshot;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T memoize(Object key, Supplier<T> lookup) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = results.putIfAbsent(key, mine);
+        if (existing != null) {
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            T value = lookup.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            results.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+}
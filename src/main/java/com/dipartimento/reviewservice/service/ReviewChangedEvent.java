@@ -0,0 +1,40 @@
+package com.dipartimento.reviewservice.service;
+
+/**
+ * Pubblicato da ReviewServ dopo ogni scrittura (creazione, modifica, cancellazione) sulle recensioni
+ * di un evento; chi mantiene dati derivati (riepiloghi, cache) lo ascolta per aggiornarsi.
+ * remote = true: la scrittura è avvenuta su un'altra istanza ed è arrivata dall'InvalidationBus.
+ */
+public class ReviewChangedEvent {
+
+    private final Long eventId;
+    private final Long userId;
+    private final boolean remote;
+
+    public ReviewChangedEvent(Long eventId, Long userId) {
+        this(eventId, userId, false);
+    }
+
+    public ReviewChangedEvent(Long eventId, Long userId, boolean remote) {
+        this.eventId = eventId;
+        this.userId = userId;
+        this.remote = remote;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public boolean isRemote() {
+        return remote;
+    }
+
+    @Override
+    public String toString() {
+        return "ReviewChangedEvent{eventId=" + eventId + ", userId=" + userId + ", remote=" + remote + "}";
+    }
+}
@@ -0,0 +1,220 @@
+package com.dipartimento.reviewservice.service;
+
+import com.dipartimento.reviewservice.repository.ReviewRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cancellazioni massive in background: tutte le recensioni di un utente (diritto all'oblio)
+ * o di un evento (evento annullato). Si cancella a blocchi di chunk-size righe, ognuno nella sua
+ * transazione breve, con una pausa tra un blocco e l'altro: la tabella non resta bloccata a lungo
+ * e le altre scritture passano. L'avanzamento si legge con getJob().
+ *
+ * Un solo job attivo per utente/evento: una seconda richiesta restituisce quello già in corso.
+ */
+@Component
+public class ReviewPurgeJobs {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewPurgeJobs.class);
+
+    public enum Target { USER, EVENT }
+
+    public enum State { RUNNING, COMPLETED, FAILED }
+
+    public static class Job {
+
+        private final String id = UUID.randomUUID().toString();
+        private final Target target;
+        private final Long targetId;
+        private final Long requestedBy;
+        private final long expected;
+        private final Instant startedAt = Instant.now();
+        private final AtomicLong deleted = new AtomicLong();
+        private final AtomicInteger chunks = new AtomicInteger();
+        private volatile State state = State.RUNNING;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        Job(Target target, Long targetId, Long requestedBy, long expected) {
+            this.target = target;
+            this.targetId = targetId;
+            this.requestedBy = requestedBy;
+            this.expected = expected;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Long getRequestedBy() {
+            return requestedBy;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("jobId", id);
+            snapshot.put("target", target);
+            snapshot.put("targetId", targetId);
+            snapshot.put("state", state);
+            snapshot.put("deleted", deleted.get());
+            // Stima fatta all'avvio: le recensioni inserite nel frattempo possono farla superare
+            snapshot.put("expected", expected);
+            snapshot.put("chunks", chunks.get());
+            snapshot.put("startedAt", startedAt.toString());
+            snapshot.put("finishedAt", finishedAt != null ? finishedAt.toString() : null);
+            snapshot.put("error", error);
+            return snapshot;
+        }
+    }
+
+    @Value("${review.purge.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${review.purge.pause:20ms}")
+    private Duration pause;
+
+    @Value("${review.purge.job-retention:1000}")
+    private int jobRetention;
+
+    private final ReviewRepository reviewRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ExecutorService executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), new CustomizableThreadFactory("review-purge-"));
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Queue<String> jobOrder = new ConcurrentLinkedQueue<>();
+    private final Map<String, Job> active = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReviewPurgeJobs(ReviewRepository reviewRepository, ApplicationEventPublisher eventPublisher) {
+        this.reviewRepository = reviewRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Avvia (o restituisce, se già in corso) la cancellazione di tutte le recensioni dell'utente.
+     */
+    public Job purgeUser(Long userId, Long requestedBy) {
+        return start(Target.USER, userId, requestedBy);
+    }
+
+    /**
+     * Avvia (o restituisce, se già in corso) la cancellazione di tutte le recensioni dell'evento.
+     */
+    public Job purgeEvent(Long eventId, Long requestedBy) {
+        return start(Target.EVENT, eventId, requestedBy);
+    }
+
+    public Job getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Job start(Target target, Long targetId, Long requestedBy) {
+        String key = target + ":" + targetId;
+        Job running = active.get(key);
+        if (running != null) {
+            return running;
+        }
+        // Conteggio fuori da computeIfAbsent: niente query mentre si tiene il lock della mappa
+        long expected = target == Target.USER
+                ? reviewRepository.countByUserId(targetId)
+                : reviewRepository.countByEventId(targetId);
+        Job job = new Job(target, targetId, requestedBy, expected);
+        Job existing = active.putIfAbsent(key, job);
+        if (existing != null) {
+            return existing;
+        }
+        remember(job);
+        executor.execute(() -> run(job, key));
+        return job;
+    }
+
+    private void run(Job job, String key) {
+        // Eventi toccati, letti prima di cancellare: servono per aggiornare riepiloghi e cache alla fine
+        List<Long> eventIds = job.target == Target.USER
+                ? reviewRepository.findEventIdsByUserId(job.targetId)
+                : List.of(job.targetId);
+        // Notifica anche all'inizio: chi rilegge durante il job non riceve 304 sulla versione precedente
+        publishChanged(job, eventIds);
+        try {
+            int deleted;
+            do {
+                deleted = job.target == Target.USER
+                        ? reviewRepository.deleteChunkByUserId(job.targetId, chunkSize)
+                        : reviewRepository.deleteChunkByEventId(job.targetId, chunkSize);
+                job.deleted.addAndGet(deleted);
+                job.chunks.incrementAndGet();
+                if (deleted == chunkSize && !pause.isZero()) {
+                    Thread.sleep(pause.toMillis());
+                }
+            } while (deleted == chunkSize);
+            job.state = State.COMPLETED;
+            log.info("Job {} completato: {} {} -> {} recensioni cancellate", job.id, job.target, job.targetId, job.deleted.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(job, "interrotto allo shutdown");
+        } catch (RuntimeException e) {
+            fail(job, e.getMessage());
+        } finally {
+            job.finishedAt = Instant.now();
+            active.remove(key, job);
+            // Anche un job fallito può aver cancellato qualcosa: i dati derivati vanno comunque aggiornati
+            publishChanged(job, eventIds);
+        }
+    }
+
+    private void publishChanged(Job job, List<Long> eventIds) {
+        Long userId = job.target == Target.USER ? job.targetId : null;
+        eventIds.forEach(eventId -> eventPublisher.publishEvent(new ReviewChangedEvent(eventId, userId)));
+    }
+
+    private void fail(Job job, String error) {
+        job.error = error;
+        job.state = State.FAILED;
+        log.error("Job {} fallito dopo {} recensioni cancellate: {}", job.id, job.deleted.get(), error);
+    }
+
+    private void remember(Job job) {
+        jobs.put(job.id, job);
+        jobOrder.add(job.id);
+        while (jobs.size() > jobRetention) {
+            String oldest = jobOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            jobs.remove(oldest);
+        }
+    }
+}
@@ -1,34 +1,95 @@
 package com.dipartimento.reviewservice.service;
 
+import com.dipartimento.reviewservice.config.DownstreamProperties;
+import com.dipartimento.reviewservice.dto.BookingCheck;
+import com.dipartimento.reviewservice.dto.BookingPair;
 import com.dipartimento.reviewservice.dto.EventDTO;
 import com.dipartimento.reviewservice.dto.UsersAccounts;
+import com.dipartimento.reviewservice.logging.SampledLogger;
 import com.dipartimento.reviewservice.model.Review;
 import com.dipartimento.reviewservice.repository.ReviewRepository;
+import com.dipartimento.reviewservice.security.AuthenticatedUser;
+import com.dipartimento.reviewservice.security.util.JwtUtil;
+import com.dipartimento.reviewservice.service.resilience.DownstreamGuards;
+import com.dipartimento.reviewservice.service.resilience.DownstreamUnavailableException;
+import com.dipartimento.reviewservice.service.resilience.FallbackPolicy;
 import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.*;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 
 @Service
 public class ReviewServ {
 
+    private static final Logger log = LoggerFactory.getLogger(ReviewServ.class);
+    // Errori dei servizi a valle: si ripetono a ogni richiesta finché il servizio non torna
+    private static final SampledLogger errors = SampledLogger.of(ReviewServ.class);
+
     @Autowired
     private ReviewRepository reviewRepository;
 
+    // Un client con pool e timeout propri per ciascun servizio a valle (vedi AppConfig)
+    @Autowired
+    @Qualifier("authRestTemplate")
+    private RestTemplate authRestTemplate;
+
+    @Autowired
+    @Qualifier("eventRestTemplate")
+    private RestTemplate eventRestTemplate;
+
+    // Verifiche di prenotazione raggruppate in batch (vedi BookingCheckClient)
+    @Autowired
+    private BookingCheckClient bookingCheckClient;
+
     @Autowired
-    private RestTemplate restTemplate;
+    private EventCache eventCache;
+
+    @Autowired
+    private DownstreamGuards downstreamGuards;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private String authMeUrl;         // User service endpoint per token validation
+    private String eventServiceUrl;   // Event service endpoint
+
+    // false: identità dai claims del JWT già verificato; true: verifica anche su /auth/me (una chiamata per richiesta)
+    @Value("${review.auth.remote-verification:false}")
+    private boolean remoteVerification;
+
+    // Attesa massima di una verifica di prenotazione accorpata: la stessa scadenza dei controlli (PreconditionRunner)
+    @Value("${review.checks.timeout:3s}")
+    private Duration checkTimeout;
 
-    private final String AUTH_ME_URL = "http://localhost:8080/auth/me";       // User service endpoint per token validation
-    private final String EVENT_SERVICE_URL = "http://localhost:8081/events";  // Event service endpoint
-    private final String BOOKING_CHECK_URL = "http://localhost:8083/api/bookings/check"; // Booking check endpoint
+    @Autowired
+    public void setDownstreamProperties(DownstreamProperties downstream) {
+        this.authMeUrl = downstream.getAuth().getBaseUrl() + "/auth/me";
+        this.eventServiceUrl = downstream.getEvent().getBaseUrl() + "/events";
+    }
 
     public List<Review> getAllReviews() {
         return reviewRepository.findAll();
@@ -38,31 +99,79 @@ public class ReviewServ {
         return reviewRepository.findByEventId(eventId);
     }
 
+    /**
+     * Crea o sostituisce la recensione dell'utente per l'evento con un solo statement atomico.
+     */
+    public Review upsertReview(Review review) {
+        Review saved = reviewRepository.upsert(review);
+        eventPublisher.publishEvent(new ReviewChangedEvent(saved.getEventId(), saved.getUserId()));
+        return saved;
+    }
+
     public Review saveReview(Review review) {
-        return reviewRepository.save(review);
+        Review saved = reviewRepository.save(review);
+        eventPublisher.publishEvent(new ReviewChangedEvent(saved.getEventId(), saved.getUserId()));
+        return saved;
     }
 
     /**
      * Verifica che l'utente sia autenticato e che il token corrisponda allo userId passato
      */
     public boolean isUserAuthenticated(Long userId, String token) {
+        AuthenticatedUser user = resolveUser(token);
+        return user != null && user.getUserId() != null && user.getUserId().equals(userId);
+    }
+
+    /**
+     * Risolve l'utente della richiesta corrente una sola volta.
+     * In modalità locale usa il principal già verificato da JwtAuthenticationFilter (o i claims del token);
+     * con review.auth.remote-verification=true chiama /auth/me al massimo una volta per richiesta.
+     */
+    public AuthenticatedUser resolveUser(String token) {
+        if (token == null) {
+            return null;
+        }
+
+        if (remoteVerification) {
+            return resolveRemoteUser(token);
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null
+                && authentication.getPrincipal() instanceof AuthenticatedUser user
+                && token.equals(authentication.getCredentials())) {
+            return user;
+        }
+
+        return JwtUtil.extractAuthenticatedUser(token);
+    }
+
+    private AuthenticatedUser resolveRemoteUser(String token) {
+        return RequestLookups.current().user(token, () -> fetchCurrentUser(token));
+    }
+
+    private AuthenticatedUser fetchCurrentUser(String token) {
+        RequestLookups.current().countCall("auth");
         try {
             HttpHeaders headers = new HttpHeaders();
             headers.set("Authorization", "Bearer " + token);
-            HttpEntity<String> entity = new HttpEntity<>(headers);
+            HttpEntity<Void> entity = new HttpEntity<>(headers);
 
-            ResponseEntity<UsersAccounts> response = restTemplate.exchange(
-                    AUTH_ME_URL,
+            ResponseEntity<UsersAccounts> response = downstreamGuards.auth().call(() -> authRestTemplate.exchange(
+                    authMeUrl,
                     HttpMethod.GET,
                     entity,
                     UsersAccounts.class
-            );
+            ));
 
-            UsersAccounts user = response.getBody();
-            return user != null && user.getId() == userId;
+            UsersAccounts account = response.getBody();
+            return account != null ? new AuthenticatedUser(account.getId(), account.getUsername(), account.getRole()) : null;
+        } catch (DownstreamUnavailableException e) {
+            errors.warn("Verifica del token su /auth/me non eseguita: {}", e.getMessage());
+            return null;
         } catch (Exception e) {
-            e.printStackTrace();
-            return false;
+            errors.error("Verifica del token su /auth/me fallita", e);
+            return null;
         }
     }
 
@@ -73,55 +182,120 @@ public class ReviewServ {
 
     public boolean isEventExists(Long eventId) {
         try {
-            String url = EVENT_SERVICE_URL + "/internal/" + eventId;
-            System.out.println("[DEBUG] Chiamata a: " + url);
-            ResponseEntity<EventDTO> response = restTemplate.getForEntity(url, EventDTO.class);
-            return response.getStatusCode().is2xxSuccessful();
+            return getEvent(eventId) != null;
         } catch (Exception e) {
-            System.err.println("[ERRORE] Chiamata evento fallita: " + e.getMessage());
+            errors.warn("Chiamata evento {} fallita", eventId, e);
             return false;
         }
     }
 
-
+    /**
+     * Evento letto dalla cache condivisa (null se non esiste); una sola chiamata remota per miss.
+     * Nella stessa richiesta l'evento resta quello letto la prima volta.
+     */
+    public EventDTO getEvent(Long eventId) {
+        return RequestLookups.current().event(eventId, () -> eventCache.get(eventId, this::fetchEvent));
+    }
 
     /**
-     * Verifica se l'utente ha prenotato l'evento
+     * Come getEvent, ma per le sole letture: se l'Event service non risponde e la policy è SERVE_STALE
+     * restituisce l'ultimo valore noto anche se scaduto. Le scritture usano sempre getEvent (fail closed).
      */
+    public EventDTO getEventForRead(Long eventId) {
+        try {
+            return getEvent(eventId);
+        } catch (RestClientException e) {
+            if (downstreamGuards.event().getReadFallback() == FallbackPolicy.SERVE_STALE && eventCache.containsStale(eventId)) {
+                return eventCache.getStale(eventId);
+            }
+            throw e;
+        }
+    }
 
-    public boolean hasUserBookedEvent(Long userId, Long eventId, String token) {
+    private EventDTO fetchEvent(Long eventId) {
+        log.debug("Chiamata a {}/internal/{}", eventServiceUrl, eventId);
+        RequestLookups.current().countCall("event");
         try {
-            String url = BOOKING_CHECK_URL + "?userId=" + userId + "&eventId=" + eventId;
+            // URL come template: span e metriche http.client.requests raggruppano per template, non per evento
+            ResponseEntity<EventDTO> response = downstreamGuards.event().call(() -> eventRestTemplate.getForEntity(
+                    eventServiceUrl + "/internal/{eventId}", EventDTO.class, eventId));
+            return response.getStatusCode().is2xxSuccessful() ? response.getBody() : null;
+        } catch (HttpClientErrorException.NotFound e) {
+            return null;
+        }
+    }
 
-            System.out.println("[DEBUG] Chiamata a BookingService: " + url);
-            System.out.println("[DEBUG] Token usato: " + token);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Authorization", "Bearer " + token);
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
 
-            ResponseEntity<Boolean> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    entity,
-                    Boolean.class
-            );
+    /**
+     * Verifica se l'utente ha prenotato l'evento. Le verifiche concorrenti con lo stesso token partono
+     * insieme in un'unica chiamata batch; l'esito resta valido per il resto della richiesta.
+     */
+    public boolean hasUserBookedEvent(Long userId, Long eventId, String token) {
+        RequestLookups lookups = RequestLookups.current();
+        try {
+            log.debug("Verifica prenotazione userId={}, eventId={}", userId, eventId);
+            return lookups.booking(token, new BookingPair(userId, eventId), () -> fetchBooking(lookups, userId, eventId, token));
+        } catch (RestClientException e) {
+            // Circuito aperto o bulkhead pieno (DownstreamUnavailableException) oppure errore di rete
+            errors.warn("Verifica prenotazione userId={}, eventId={} fallita", userId, eventId, e);
+            return false;
+        }
+    }
 
-            Boolean booked = response.getBody();
-            System.out.println("[DEBUG] BookingService risposta: " + response.getStatusCode() + ", booked: " + booked);
+    private boolean fetchBooking(RequestLookups lookups, Long userId, Long eventId, String token) {
+        lookups.countCall("booking");
+        try {
+            return bookingCheckClient.check(userId, eventId, token).get(checkTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Verifica prenotazione interrotta");
+        } catch (TimeoutException e) {
+            throw new ResourceAccessException("Verifica prenotazione scaduta dopo " + checkTimeout.toMillis() + " ms");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RestClientException cause) {
+                throw cause;
+            }
+            throw new ResourceAccessException("Verifica prenotazione fallita: " + e.getCause().getMessage());
+        }
+    }
 
-            return Boolean.TRUE.equals(booked);
-        } catch (Exception e) {
-            System.err.println("[ERRORE] Eccezione nella chiamata a BookingService: " + e.getMessage());
-            e.printStackTrace();
-            return false;
+    /**
+     * Prenotazioni di più coppie (utente, evento), nell'ordine richiesto: chiamate batch solo per
+     * le coppie non ancora verificate nella richiesta corrente.
+     * Lancia RestClientException se il Booking service non risponde.
+     */
+    public List<BookingCheck> checkBookings(List<BookingPair> pairs, String token) {
+        RequestLookups lookups = RequestLookups.current();
+        Map<BookingPair, Boolean> results = new HashMap<>();
+        List<BookingPair> missing = new ArrayList<>();
+        for (BookingPair pair : new LinkedHashSet<>(pairs)) {
+            Boolean known = lookups.knownBooking(token, pair);
+            if (known != null) {
+                results.put(pair, known);
+            } else {
+                missing.add(pair);
+            }
         }
+        if (!missing.isEmpty()) {
+            Map<BookingPair, Boolean> fetched = bookingCheckClient.checkAll(missing, token);
+            missing.forEach(pair -> {
+                boolean booked = fetched.getOrDefault(pair, false);
+                lookups.rememberBooking(token, pair, booked);
+                results.put(pair, booked);
+            });
+        }
+        return pairs.stream()
+                .map(pair -> new BookingCheck(pair.userId(), pair.eventId(), results.get(pair)))
+                .toList();
     }
 
 
     @Transactional
     public void deleteReviewsByUserId(Long userId) {
+        List<Long> eventIds = reviewRepository.findEventIdsByUserId(userId);
         reviewRepository.deleteByUserId(userId);
+        eventIds.forEach(eventId -> eventPublisher.publishEvent(new ReviewChangedEvent(eventId, userId)));
     }
 
 
@@ -131,16 +305,10 @@ public class ReviewServ {
 
     public boolean isEventInPast(Long eventId) {
         try {
-            String url = EVENT_SERVICE_URL + "/internal/" + eventId;
-            ResponseEntity<EventDTO> response = restTemplate.getForEntity(url, EventDTO.class);
-
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                EventDTO event = response.getBody();
-
-                return Boolean.TRUE.equals(event.isArchived());
-            }
+            EventDTO event = getEvent(eventId);
+            return event != null && Boolean.TRUE.equals(event.isArchived());
         } catch (RestClientException e) {
-            System.out.println("Errore nel recuperare evento: " + e.getMessage());
+            errors.warn("Errore nel recuperare l'evento {}", eventId, e);
         }
 
         return false;
@@ -148,71 +316,36 @@ public class ReviewServ {
 
 
     public Long extractUserIdFromToken(String token) {
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Authorization", "Bearer " + token);
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
-
-            ResponseEntity<UsersAccounts> response = restTemplate.exchange(
-                    AUTH_ME_URL,
-                    HttpMethod.GET,
-                    entity,
-                    UsersAccounts.class
-            );
-
-            UsersAccounts user = response.getBody();
-            return user != null ? user.getId() : null;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
+        AuthenticatedUser user = resolveUser(token);
+        return user != null ? user.getUserId() : null;
     }
 
     public boolean hasRole(String token, String role) {
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Authorization", "Bearer " + token);
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
+        AuthenticatedUser user = resolveUser(token);
+        return user != null && user.hasRole(role);
+    }
 
-            ResponseEntity<UsersAccounts> response = restTemplate.exchange(
-                    AUTH_ME_URL,
-                    HttpMethod.GET,
-                    entity,
-                    UsersAccounts.class
-            );
 
-            UsersAccounts user = response.getBody();
-            return user != null && role.equalsIgnoreCase(user.getRole());
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
-        }
+    /**
+     * Come isUserOrganizerOfEvent, per le operazioni che modificano dati (cancellazione delle recensioni
+     * dell'evento): l'evento si legge con getEvent, mai un valore scaduto, e se l'Event service non risponde
+     * la RestClientException arriva al chiamante (fail closed).
+     */
+    public boolean isUserOrganizerOfEventForWrite(Long userId, Long eventId) {
+        EventDTO event = getEvent(eventId);
+        return event != null && userId.equals(event.getOrganizerId());
     }
 
-
     public boolean isUserOrganizerOfEvent(Long userId, Long eventId, String token) {
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Authorization", "Bearer " + token);
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
-
-            String url = EVENT_SERVICE_URL + "/" + eventId;
-            System.out.println("[DEBUG] Chiamata a: " + url + " per verificare organizer con userId=" + userId);
-
-            ResponseEntity<EventDTO> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    entity,
-                    EventDTO.class
-            );
-
-            EventDTO event = response.getBody();
+            log.debug("Verifica organizer evento {} con userId={}", eventId, userId);
+            EventDTO event = getEventForRead(eventId);
 
             boolean isOrganizer = event != null && event.getOrganizerId() != null && event.getOrganizerId().equals(userId);
-            System.out.println("[DEBUG] Evento trovato: " + event + ", isOrganizer: " + isOrganizer);
+            log.debug("Evento {}: organizerId={}, isOrganizer={}", eventId, event != null ? event.getOrganizerId() : null, isOrganizer);
             return isOrganizer;
         } catch (RestClientException e) {
-            System.err.println("[ERRORE] Chiamata fallita per organizer: " + e.getMessage());
+            errors.warn("Verifica organizer evento {} fallita", eventId, e);
             return false;
         }
     }
@@ -223,6 +356,7 @@ public class ReviewServ {
     @Transactional
     public void deleteReviewsByUserIdAndEventId(Long userId, Long eventId) {
         reviewRepository.deleteByUserIdAndEventId(userId, eventId);
+        eventPublisher.publishEvent(new ReviewChangedEvent(eventId, userId));
     }
 
 
@@ -0,0 +1,93 @@
+package com.dipartimento.reviewservice.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Versione delle recensioni per evento e per utente, incrementata a ogni ReviewChangedEvent:
+ * fa da chiave di EventReviewsCache e dà il Last-Modified degli elenchi. Una scrittura senza utente
+ * (cancellazione di tutte le recensioni di un evento) cambia la versione di tutti gli utenti, perché
+ * non si sa di chi fossero le recensioni.
+ *
+ * I contatori sono in memoria e ripartono da zero al riavvio, e ogni istanza ha i suoi: per questo
+ * la chiave contiene anche un identificativo casuale dell'istanza e non va mai mandata ai client.
+ * L'ETag invece si calcola dal contenuto dell'elenco (etagOf): dipende solo dai dati nel database,
+ * quindi è lo stesso su tutte le istanze e dopo un riavvio.
+ */
+@Component
+public class ReviewVersionTracker {
+
+    public record Version(String key, long lastModified) {}
+
+    private record Counter(long value, long modifiedAt) {}
+
+    private final SecureRandom random = new SecureRandom();
+    private volatile String instanceTag = Long.toHexString(random.nextLong());
+    // Avvio o ultimo invalidateAll: nessun Last-Modified può essere precedente
+    private volatile long resetAt = System.currentTimeMillis();
+
+    private final Map<Long, Counter> events = new ConcurrentHashMap<>();
+    private final Map<Long, Counter> users = new ConcurrentHashMap<>();
+    // Scritture senza utente: entra nella versione di ogni utente
+    private final AtomicReference<Counter> allUsers = new AtomicReference<>(new Counter(0, 0));
+
+    /**
+     * Versione corrente delle recensioni dell'evento. Va letta prima della query: se nel frattempo
+     * arriva una scrittura in cache finiscono dati più nuovi sotto una chiave vecchia, che alla
+     * richiesta successiva non corrisponde più (mai il contrario).
+     */
+    public Version forEvent(Long eventId) {
+        return version("e", eventId, events.get(eventId));
+    }
+
+    public Version forUser(Long userId) {
+        Counter all = allUsers.get();
+        Version own = version("u", userId, users.get(userId));
+        return new Version(own.key() + "-" + all.value(), Math.max(own.lastModified(), all.modifiedAt()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent event) {
+        long now = System.currentTimeMillis();
+        if (event.getEventId() != null) {
+            events.compute(event.getEventId(), (id, counter) -> bump(counter, now));
+        }
+        if (event.getUserId() != null) {
+            users.compute(event.getUserId(), (id, counter) -> bump(counter, now));
+        } else if (event.getEventId() != null) {
+            allUsers.updateAndGet(counter -> bump(counter, now));
+        }
+    }
+
+    /**
+     * ETag forte dell'elenco serializzato: un hash dei byte della risposta.
+     */
+    public static String etagOf(byte[] json) {
+        return "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+    }
+
+    /**
+     * Cambia la parte casuale di tutte le chiavi: nessuna voce di EventReviewsCache vale più.
+     * Usato quando delle invalidazioni da altre istanze potrebbero essere andate perse.
+     */
+    public void invalidateAll() {
+        resetAt = System.currentTimeMillis();
+        instanceTag = Long.toHexString(random.nextLong());
+    }
+
+    private static Counter bump(Counter counter, long now) {
+        return new Counter(counter == null ? 1 : counter.value() + 1, now);
+    }
+
+    private Version version(String kind, Long id, Counter counter) {
+        long value = counter != null ? counter.value() : 0;
+        long modifiedAt = counter != null ? Math.max(counter.modifiedAt(), resetAt) : resetAt;
+        return new Version(kind + id + "-" + value + "-" + instanceTag, modifiedAt);
+    }
+}
@@ -0,0 +1,280 @@
+package com.dipartimento.reviewservice.service;
+
+import com.dipartimento.reviewservice.model.Review;
+import com.dipartimento.reviewservice.repository.ReviewRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Scrittura differita (write-behind) delle recensioni, attivabile con review.write-behind.enabled=true.
+ *
+ * Le recensioni già validate finiscono in una coda limitata in memoria; un unico thread le salva
+ * in batch JDBC (upsert) appena il batch è pieno o è passato max-latency dalla prima in attesa.
+ * Coda piena: si attende al massimo offer-timeout e poi si rifiuta (il controller risponde 503).
+ *
+ * Durabilità: finché non è stata scritta, una recensione esiste solo in memoria. Allo shutdown
+ * ordinato la coda viene svuotata, ma un crash del processo perde quelle ancora in coda.
+ */
+@Component
+public class ReviewWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewWriteBehind.class);
+
+    public enum Status { QUEUED, STORED, FAILED }
+
+    private record Pending(String trackingId, Review review) {}
+
+    // Messo in coda da stop() per svegliare il flusher fermo in poll: il flusher non viene mai interrotto,
+    // perché un interrupt durante la scrittura (upsertAll, attesa di una connessione Hikari) la farebbe fallire
+    private static final Pending STOP = new Pending(null, null);
+
+    @Value("${review.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${review.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${review.write-behind.batch-size:200}")
+    private int batchSize;
+
+    @Value("${review.write-behind.max-latency:200ms}")
+    private Duration maxLatency;
+
+    @Value("${review.write-behind.offer-timeout:50ms}")
+    private Duration offerTimeout;
+
+    @Value("${review.write-behind.status-retention:100000}")
+    private int statusRetention;
+
+    private final ReviewRepository reviewRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private BlockingQueue<Pending> queue;
+    private Thread flusher;
+    private volatile boolean running;
+    // submit (read) contro stop (write): dopo lo stop nessuna offer può arrivare dopo lo svuotamento della coda
+    private final ReadWriteLock lifecycle = new ReentrantReadWriteLock();
+
+    private final Map<String, Status> statuses = new ConcurrentHashMap<>();
+    private final Queue<String> statusOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger statusOrderSize = new AtomicInteger();
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushedItems = new AtomicLong();
+    private final AtomicLong maxBatch = new AtomicLong();
+    private final AtomicLong flushNanosTotal = new AtomicLong();
+    private final AtomicLong flushNanosMax = new AtomicLong();
+
+    @Autowired
+    public ReviewWriteBehind(ReviewRepository reviewRepository, ApplicationEventPublisher eventPublisher) {
+        this.reviewRepository = reviewRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        flusher = new Thread(this::flushLoop, "review-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Accoda la recensione e restituisce l'id di tracciamento; null se la coda è piena (backpressure).
+     */
+    public String submit(Review review) {
+        String trackingId = UUID.randomUUID().toString();
+        boolean offered = false;
+        lifecycle.readLock().lock();
+        try {
+            if (running) {
+                // QUEUED prima della offer: il flusher può scrivere STORED/FAILED appena la recensione è in coda
+                setStatus(trackingId, Status.QUEUED);
+                offered = queue.offer(new Pending(trackingId, review), offerTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lifecycle.readLock().unlock();
+        }
+        if (!offered) {
+            statuses.remove(trackingId);
+            rejected.incrementAndGet();
+            return null;
+        }
+        accepted.incrementAndGet();
+        return trackingId;
+    }
+
+    public Status getStatus(String trackingId) {
+        return statuses.get(trackingId);
+    }
+
+    public Map<String, Object> stats() {
+        long flushCount = flushes.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("queueDepth", queue != null ? queue.size() : 0);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("accepted", accepted.get());
+        stats.put("rejected", rejected.get());
+        stats.put("stored", stored.get());
+        stats.put("failed", failed.get());
+        stats.put("flushes", flushCount);
+        stats.put("avgBatchSize", flushCount == 0 ? 0.0 : (double) flushedItems.get() / flushCount);
+        stats.put("maxBatchSize", maxBatch.get());
+        stats.put("avgFlushMillis", flushCount == 0 ? 0.0 : flushNanosTotal.get() / 1_000_000.0 / flushCount);
+        stats.put("maxFlushMillis", flushNanosMax.get() / 1_000_000.0);
+        return stats;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // Attende le submit in corso: quelle successive vedono running = false
+        lifecycle.writeLock().lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+        } finally {
+            lifecycle.writeLock().unlock();
+        }
+        // Coda piena: il flusher non è in attesa e vede running = false alla fine del batch in corso
+        queue.offer(STOP);
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+        // Shutdown ordinato: quello che resta in coda viene scritto prima di chiudere
+        List<Pending> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.removeIf(pending -> pending == STOP);
+        while (!remaining.isEmpty()) {
+            List<Pending> batch = remaining.subList(0, Math.min(batchSize, remaining.size()));
+            flush(new ArrayList<>(batch));
+            batch.clear();
+        }
+    }
+
+    private void flushLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null || first == STOP) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxLatency.toNanos();
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || wait <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null || next == STOP) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Nessuno interrompe il flusher (vedi STOP): il batch già prelevato viene comunque scritto
+            }
+            batch.removeIf(pending -> pending == STOP);
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        long start = System.nanoTime();
+        // Più invii dello stesso utente sullo stesso evento nel batch: vale l'ultimo
+        Map<String, Review> latest = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            Review review = pending.review();
+            latest.put(review.getUserId() + ":" + review.getEventId(), review);
+        }
+        List<Review> reviews = new ArrayList<>(latest.values());
+
+        try {
+            reviewRepository.upsertAll(reviews);
+            batch.forEach(pending -> setStatus(pending.trackingId(), Status.STORED));
+            stored.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Batch di {} recensioni fallito, riprovo una alla volta: {}", reviews.size(), e.getMessage());
+            retryOneByOne(batch);
+        }
+        reviews.forEach(review -> eventPublisher.publishEvent(new ReviewChangedEvent(review.getEventId(), review.getUserId())));
+
+        long elapsed = System.nanoTime() - start;
+        flushes.incrementAndGet();
+        flushedItems.addAndGet(batch.size());
+        maxBatch.accumulateAndGet(batch.size(), Math::max);
+        flushNanosTotal.addAndGet(elapsed);
+        flushNanosMax.accumulateAndGet(elapsed, Math::max);
+    }
+
+    private void retryOneByOne(List<Pending> batch) {
+        for (Pending pending : batch) {
+            try {
+                reviewRepository.upsert(pending.review());
+                setStatus(pending.trackingId(), Status.STORED);
+                stored.incrementAndGet();
+            } catch (RuntimeException e) {
+                log.error("Recensione {} non salvata: {}", pending.trackingId(), e.getMessage());
+                setStatus(pending.trackingId(), Status.FAILED);
+                failed.incrementAndGet();
+            }
+        }
+    }
+
+    private void setStatus(String trackingId, Status status) {
+        if (statuses.put(trackingId, status) == null) {
+            statusOrder.add(trackingId);
+            // Conta anche gli id delle submit rifiutate, già tolti da statuses
+            if (statusOrderSize.incrementAndGet() > statusRetention) {
+                String oldest = statusOrder.poll();
+                if (oldest != null) {
+                    statusOrderSize.decrementAndGet();
+                    statuses.remove(oldest);
+                }
+            }
+        }
+    }
+}
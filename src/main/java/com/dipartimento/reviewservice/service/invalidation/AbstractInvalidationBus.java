@@ -0,0 +1,81 @@
+package com.dipartimento.reviewservice.service.invalidation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Parte comune ai trasporti: identità dell'istanza, listener, scarto dei propri messaggi e contatori.
+ */
+abstract class AbstractInvalidationBus implements InvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(AbstractInvalidationBus.class);
+
+    protected final String nodeId = UUID.randomUUID().toString();
+
+    private final List<Consumer<Invalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    protected final AtomicLong sent = new AtomicLong();
+    protected final AtomicLong received = new AtomicLong();
+    protected final AtomicLong dropped = new AtomicLong();
+
+    @Override
+    public void subscribe(Consumer<Invalidation> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Consegna ai listener un messaggio arrivato dal trasporto, se non l'ha inviato questa istanza.
+     */
+    protected void deliver(String payload) {
+        Invalidation invalidation;
+        try {
+            if (nodeId.equals(Invalidation.originOf(payload))) {
+                return;
+            }
+            invalidation = Invalidation.decode(payload);
+        } catch (RuntimeException e) {
+            log.warn("Messaggio di invalidazione non valido: {}", payload);
+            return;
+        }
+        received.incrementAndGet();
+        dispatch(invalidation);
+    }
+
+    /**
+     * Il trasporto potrebbe aver perso dei messaggi: i listener svuotano tutte le cache.
+     */
+    protected void missedMessages() {
+        dispatch(Invalidation.ALL);
+    }
+
+    private void dispatch(Invalidation invalidation) {
+        for (Consumer<Invalidation> listener : listeners) {
+            try {
+                listener.accept(invalidation);
+            } catch (RuntimeException e) {
+                log.error("Errore applicando l'invalidazione {}: {}", invalidation, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("transport", transport());
+        stats.put("nodeId", nodeId);
+        stats.put("sent", sent.get());
+        stats.put("received", received.get());
+        stats.put("dropped", dropped.get());
+        return stats;
+    }
+
+    protected abstract String transport();
+}
@@ -0,0 +1,42 @@
+package com.dipartimento.reviewservice.service.invalidation;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Trasporto nella stessa JVM, per i test: ogni contesto Spring è un'istanza e i messaggi
+ * vengono consegnati in modo sincrono a tutte le altre istanze attive nella JVM.
+ */
+@Component
+@ConditionalOnProperty(name = "review.invalidation.transport", havingValue = "in-memory")
+public class InMemoryInvalidationBus extends AbstractInvalidationBus {
+
+    private static final List<InMemoryInvalidationBus> NODES = new CopyOnWriteArrayList<>();
+
+    public InMemoryInvalidationBus() {
+        NODES.add(this);
+    }
+
+    @Override
+    public void publish(Invalidation invalidation) {
+        String payload = invalidation.encode(nodeId);
+        sent.incrementAndGet();
+        for (InMemoryInvalidationBus node : NODES) {
+            node.deliver(payload);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        NODES.remove(this);
+    }
+
+    @Override
+    protected String transport() {
+        return "in-memory";
+    }
+}
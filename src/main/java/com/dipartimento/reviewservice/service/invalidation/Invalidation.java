@@ -0,0 +1,42 @@
+package com.dipartimento.reviewservice.service.invalidation;
+
+/**
+ * Messaggio di invalidazione scambiato tra le istanze.
+ * REVIEW: sono cambiate le recensioni di eventId (e di userId, se presente);
+ * EVENT: sono cambiati i metadati dell'evento eventId;
+ * ALL: messaggi forse persi (es. riconnessione del trasporto), svuotare tutte le cache locali.
+ */
+public record Invalidation(Kind kind, Long eventId, Long userId) {
+
+    public enum Kind { REVIEW, EVENT, ALL }
+
+    public static Invalidation review(Long eventId, Long userId) {
+        return new Invalidation(Kind.REVIEW, eventId, userId);
+    }
+
+    public static Invalidation event(Long eventId) {
+        return new Invalidation(Kind.EVENT, eventId, null);
+    }
+
+    public static final Invalidation ALL = new Invalidation(Kind.ALL, null, null);
+
+    /**
+     * Formato compatto per il trasporto: "origine|tipo|eventId|userId" (id vuoti se null).
+     */
+    String encode(String origin) {
+        return origin + "|" + kind + "|" + (eventId != null ? eventId : "") + "|" + (userId != null ? userId : "");
+    }
+
+    static String originOf(String payload) {
+        return payload.substring(0, payload.indexOf('|'));
+    }
+
+    static Invalidation decode(String payload) {
+        String[] parts = payload.split("\\|", -1);
+        return new Invalidation(Kind.valueOf(parts[1]), parseId(parts[2]), parseId(parts[3]));
+    }
+
+    private static Long parseId(String value) {
+        return value.isEmpty() ? null : Long.valueOf(value);
+    }
+}
@@ -0,0 +1,27 @@
+package com.dipartimento.reviewservice.service.invalidation;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Canale tra le istanze del servizio per propagare le invalidazioni delle cache locali.
+ * Il trasporto si sceglie con review.invalidation.transport: postgres (LISTEN/NOTIFY, default),
+ * in-memory (più contesti nella stessa JVM, per i test) oppure none (istanza singola).
+ *
+ * Consegna best effort: i messaggi persi durante una disconnessione vengono compensati
+ * notificando Invalidation.ALL ai listener alla riconnessione.
+ */
+public interface InvalidationBus {
+
+    /**
+     * Invia il messaggio alle altre istanze (non torna all'istanza che lo ha inviato).
+     */
+    void publish(Invalidation invalidation);
+
+    /**
+     * Registra un listener per i messaggi arrivati dalle altre istanze.
+     */
+    void subscribe(Consumer<Invalidation> listener);
+
+    Map<String, Object> stats();
+}
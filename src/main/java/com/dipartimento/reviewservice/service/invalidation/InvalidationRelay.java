@@ -0,0 +1,79 @@
+package com.dipartimento.reviewservice.service.invalidation;
+
+import com.dipartimento.reviewservice.service.EventCache;
+import com.dipartimento.reviewservice.service.EventReviewsCache;
+import com.dipartimento.reviewservice.service.RatingSummaryService;
+import com.dipartimento.reviewservice.service.ReviewChangedEvent;
+import com.dipartimento.reviewservice.service.ReviewVersionTracker;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Collega le cache locali all'InvalidationBus.
+ * In uscita: ogni ReviewChangedEvent locale viene inoltrato alle altre istanze.
+ * In entrata: le modifiche alle recensioni arrivate da altre istanze vengono ripubblicate
+ * come ReviewChangedEvent con remote = true (riepiloghi, versioni ed elenchi in cache si aggiornano
+ * come per una scrittura locale, senza essere reinoltrate); le modifiche agli eventi
+ * invalidano la EventCache.
+ *
+ * La cache dei claims JWT non partecipa: i claims di un token firmato non cambiano.
+ */
+@Component
+public class InvalidationRelay {
+
+    private final InvalidationBus bus;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EventCache eventCache;
+    private final EventReviewsCache eventReviewsCache;
+    private final ReviewVersionTracker versionTracker;
+    private final RatingSummaryService ratingSummaryService;
+
+    @Autowired
+    public InvalidationRelay(InvalidationBus bus, ApplicationEventPublisher eventPublisher, EventCache eventCache,
+                             EventReviewsCache eventReviewsCache, ReviewVersionTracker versionTracker,
+                             RatingSummaryService ratingSummaryService) {
+        this.bus = bus;
+        this.eventPublisher = eventPublisher;
+        this.eventCache = eventCache;
+        this.eventReviewsCache = eventReviewsCache;
+        this.versionTracker = versionTracker;
+        this.ratingSummaryService = ratingSummaryService;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        bus.subscribe(this::onRemoteInvalidation);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent event) {
+        if (!event.isRemote()) {
+            bus.publish(Invalidation.review(event.getEventId(), event.getUserId()));
+        }
+    }
+
+    /**
+     * I metadati dell'evento sono cambiati (notifica dall'Event service): invalida qui e sulle altre istanze.
+     */
+    public void invalidateEvent(Long eventId) {
+        eventCache.invalidate(eventId);
+        bus.publish(Invalidation.event(eventId));
+    }
+
+    void onRemoteInvalidation(Invalidation invalidation) {
+        switch (invalidation.kind()) {
+            case REVIEW -> eventPublisher.publishEvent(
+                    new ReviewChangedEvent(invalidation.eventId(), invalidation.userId(), true));
+            case EVENT -> eventCache.invalidate(invalidation.eventId());
+            case ALL -> {
+                eventCache.invalidateAll();
+                eventReviewsCache.invalidateAll();
+                versionTracker.invalidateAll();
+                ratingSummaryService.reload();
+            }
+        }
+    }
+}
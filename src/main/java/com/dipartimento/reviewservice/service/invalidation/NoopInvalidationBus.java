@@ -0,0 +1,22 @@
+package com.dipartimento.reviewservice.service.invalidation;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Istanza singola: nessun'altra istanza da avvisare.
+ */
+@Component
+@ConditionalOnProperty(name = "review.invalidation.transport", havingValue = "none")
+public class NoopInvalidationBus extends AbstractInvalidationBus {
+
+    @Override
+    public void publish(Invalidation invalidation) {
+        // niente da fare
+    }
+
+    @Override
+    protected String transport() {
+        return "none";
+    }
+}
@@ -0,0 +1,169 @@
+package com.dipartimento.reviewservice.service.invalidation;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Trasporto PostgreSQL LISTEN/NOTIFY (default): nessuna infrastruttura in più oltre al database.
+ *
+ * Ricezione: una connessione dedicata, fuori dal pool Hikari, resta in LISTEN e viene letta da un thread
+ * con getNotifications(timeout); se cade si riconnette e, siccome nel frattempo dei messaggi possono
+ * essere andati persi, fa svuotare tutte le cache locali.
+ * Invio: pg_notify su un thread separato, in autocommit, così la notifica non si aggancia alla
+ * transazione della richiesta (già committata quando partono i listener) e non ne allunga la latenza.
+ */
+@Component
+@ConditionalOnProperty(name = "review.invalidation.transport", havingValue = "postgres", matchIfMissing = true)
+public class PostgresInvalidationBus extends AbstractInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresInvalidationBus.class);
+
+    static final String CHANNEL = "review_invalidation";
+
+    private final DataSourceProperties dataSourceProperties;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${review.invalidation.poll-timeout:500ms}")
+    private Duration pollTimeout;
+
+    @Value("${review.invalidation.reconnect-delay:2s}")
+    private Duration reconnectDelay;
+
+    private final ExecutorService sender = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(10_000), new CustomizableThreadFactory("invalidation-send-"));
+
+    private final AtomicLong reconnects = new AtomicLong();
+    private Thread listener;
+    private volatile boolean running;
+    private volatile boolean connected;
+
+    public PostgresInvalidationBus(DataSourceProperties dataSourceProperties, JdbcTemplate jdbcTemplate) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listener = new Thread(this::listenLoop, "invalidation-listen");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void publish(Invalidation invalidation) {
+        String payload = invalidation.encode(nodeId);
+        try {
+            sender.execute(() -> send(payload));
+        } catch (RejectedExecutionException e) {
+            dropped.incrementAndGet();
+            log.warn("Coda di invio invalidazioni piena, scartato: {}", payload);
+        }
+    }
+
+    private void send(String payload) {
+        try {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, payload);
+            sent.incrementAndGet();
+        } catch (RuntimeException e) {
+            dropped.incrementAndGet();
+            log.warn("Invio invalidazione fallito: {}", e.getMessage());
+        }
+    }
+
+    private void listenLoop() {
+        boolean firstConnection = true;
+        while (running) {
+            try (Connection con = connect()) {
+                PGConnection pg = con.unwrap(PGConnection.class);
+                try (Statement st = con.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                }
+                connected = true;
+                if (!firstConnection) {
+                    reconnects.incrementAndGet();
+                    log.info("Canale {} di nuovo in ascolto, svuoto le cache locali", CHANNEL);
+                    missedMessages();
+                }
+                firstConnection = false;
+
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications((int) pollTimeout.toMillis());
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            deliver(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                connected = false;
+                if (running) {
+                    log.warn("Connessione LISTEN {} persa: {}, riprovo tra {}", CHANNEL, e.getMessage(), reconnectDelay);
+                    firstConnection = false;
+                    sleep(reconnectDelay);
+                }
+            }
+        }
+        connected = false;
+    }
+
+    // Connessione del LISTEN, aperta a parte perché resta occupata per tutta la vita dell'istanza
+    Connection connect() throws SQLException {
+        return DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        sender.shutdown();
+        sender.awaitTermination(2, TimeUnit.SECONDS);
+        if (listener != null) {
+            listener.join(pollTimeout.toMillis() * 2);
+        }
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = super.stats();
+        stats.put("connected", connected);
+        stats.put("reconnects", reconnects.get());
+        return stats;
+    }
+
+    @Override
+    protected String transport() {
+        return "postgres";
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.dipartimento.reviewservice.service.resilience;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limita le chiamate concorrenti verso un servizio a valle, così un servizio lento
+ * non può occupare tutti i thread della nostra applicazione.
+ */
+public class Bulkhead {
+
+    private final int maxConcurrentCalls;
+    private final long maxWaitMillis;
+    private final Semaphore permits;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public Bulkhead(int maxConcurrentCalls, long maxWaitMillis) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitMillis = maxWaitMillis;
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+    }
+
+    public boolean tryAcquire() {
+        boolean acquired;
+        try {
+            acquired = maxWaitMillis <= 0
+                    ? permits.tryAcquire()
+                    : permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.incrementAndGet();
+        }
+        return acquired;
+    }
+
+    /**
+     * Come tryAcquire ma senza mai attendere un permesso: per le chiamate non bloccanti (WebClient),
+     * dove il thread dell'event loop non può restare fermo.
+     */
+    public boolean tryAcquireNow() {
+        boolean acquired = permits.tryAcquire();
+        if (!acquired) {
+            rejected.incrementAndGet();
+        }
+        return acquired;
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxConcurrentCalls", maxConcurrentCalls);
+        stats.put("activeCalls", maxConcurrentCalls - permits.availablePermits());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+}
@@ -0,0 +1,177 @@
+package com.dipartimento.reviewservice.service.resilience;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Circuit breaker a finestra di conteggio: CLOSED finché la percentuale di errori nelle ultime
+ * chiamate resta sotto soglia, OPEN (rifiuta subito) per openDuration, poi HALF_OPEN con poche
+ * chiamate di prova che decidono se richiudere o riaprire.
+ *
+ * ReentrantLock invece di synchronized: viene acquisito a ogni chiamata a valle e, su JDK 21,
+ * un virtual thread in attesa di un monitor conteso blocca anche il suo carrier thread.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openMillis;
+    private final int halfOpenCalls;
+
+    // Esiti delle ultime windowSize chiamate (true = errore), buffer circolare
+    private final boolean[] window;
+    private int index;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenStarted;
+    private int halfOpenSucceeded;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timesOpened = new AtomicLong();
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openMillis, int halfOpenCalls) {
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, minimumCalls);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openMillis;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.window = new boolean[this.windowSize];
+    }
+
+    /**
+     * true se la chiamata può partire; ogni chiamata ammessa va chiusa con onSuccess o onFailure.
+     */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            return acquire();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                if (++halfOpenSucceeded >= halfOpenCalls) {
+                    close();
+                }
+                return;
+            }
+            record(false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onFailure() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                open();
+                return;
+            }
+            record(true);
+            if (state == State.CLOSED && recorded >= minimumCalls && failures * 100.0 / recorded >= failureRateThreshold) {
+                open();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Chiamata ammessa ma annullata prima di avere un esito (richiesta abbandonata dal client):
+     * non conta né come successo né come errore; in HALF_OPEN libera il posto per un'altra prova.
+     */
+    public void onCancel() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN && halfOpenStarted > 0) {
+                halfOpenStarted--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        lock.lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("state", state);
+            stats.put("failureRate", recorded == 0 ? 0.0 : failures * 100.0 / recorded);
+            stats.put("bufferedCalls", recorded);
+            stats.put("rejected", rejected.get());
+            stats.put("timesOpened", timesOpened.get());
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean acquire() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+            halfOpenStarted = 0;
+            halfOpenSucceeded = 0;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && halfOpenStarted < halfOpenCalls) {
+            halfOpenStarted++;
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == windowSize) {
+            if (window[index]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[index] = failure;
+        if (failure) {
+            failures++;
+        }
+        index = (index + 1) % windowSize;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        timesOpened.incrementAndGet();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        index = 0;
+        recorded = 0;
+        failures = 0;
+    }
+}
@@ -0,0 +1,185 @@
+package com.dipartimento.reviewservice.service.resilience;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead + circuit breaker attorno alle chiamate verso un singolo servizio a valle.
+ * Le risposte 4xx contano come successo: il servizio è vivo, è la richiesta a non essere valida.
+ *
+ * Ogni chiamata, attesa del bulkhead compresa, finisce nel timer review.downstream.calls
+ * con tag service e outcome.
+ */
+public class DownstreamGuard {
+
+    public static final String METRIC = "review.downstream.calls";
+
+    /**
+     * Esito di una chiamata, tag outcome del timer.
+     */
+    public enum Outcome {
+        SUCCESS, CLIENT_ERROR, SERVER_ERROR, IO_ERROR, REJECTED, CANCELLED, ERROR;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final String name;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final FallbackPolicy readFallback;
+    private final MeterRegistry meterRegistry;
+    // Registrati al primo esito di ogni tipo: ogni serie ha il suo istogramma
+    private final Map<Outcome, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Guardia con metriche in un registry proprio, per i test.
+     */
+    public DownstreamGuard(String name, CircuitBreaker circuitBreaker, Bulkhead bulkhead, FallbackPolicy readFallback) {
+        this(name, circuitBreaker, bulkhead, readFallback, new SimpleMeterRegistry());
+    }
+
+    public DownstreamGuard(String name, CircuitBreaker circuitBreaker, Bulkhead bulkhead, FallbackPolicy readFallback,
+                           MeterRegistry meterRegistry) {
+        this.name = name;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.readFallback = readFallback;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T call(Supplier<T> call) {
+        long start = System.nanoTime();
+        Outcome outcome = Outcome.ERROR;
+        try {
+            if (!bulkhead.tryAcquire()) {
+                outcome = Outcome.REJECTED;
+                throw new DownstreamUnavailableException(name, "troppe chiamate concorrenti");
+            }
+            try {
+                if (!circuitBreaker.tryAcquire()) {
+                    outcome = Outcome.REJECTED;
+                    throw new DownstreamUnavailableException(name, "circuito aperto");
+                }
+                try {
+                    T result = call.get();
+                    outcome = Outcome.SUCCESS;
+                    return result;
+                } catch (HttpClientErrorException e) {
+                    outcome = Outcome.CLIENT_ERROR;
+                    throw e;
+                } catch (RuntimeException e) {
+                    outcome = outcomeOf(e);
+                    throw e;
+                } finally {
+                    // Ogni chiamata ammessa si chiude, anche con un Error: in HALF_OPEN un posto
+                    // di prova mai chiuso lascerebbe il circuito a rifiutare per sempre
+                    if (outcome == Outcome.SUCCESS || outcome == Outcome.CLIENT_ERROR) {
+                        circuitBreaker.onSuccess();
+                    } else {
+                        circuitBreaker.onFailure();
+                    }
+                }
+            } finally {
+                bulkhead.release();
+            }
+        } finally {
+            record(outcome, start);
+        }
+    }
+
+    /**
+     * Come call, per le chiamate non bloccanti (WebClient): controlli all'iscrizione, esito registrato
+     * quando la Mono termina. Il bulkhead non attende un permesso libero: se è pieno rifiuta subito.
+     * Una chiamata annullata (richiesta abbandonata) libera il permesso senza contare come errore.
+     */
+    public <T> Mono<T> callReactive(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            if (!bulkhead.tryAcquireNow()) {
+                record(Outcome.REJECTED, start);
+                return Mono.error(new DownstreamUnavailableException(name, "troppe chiamate concorrenti"));
+            }
+            if (!circuitBreaker.tryAcquire()) {
+                bulkhead.release();
+                record(Outcome.REJECTED, start);
+                return Mono.error(new DownstreamUnavailableException(name, "circuito aperto"));
+            }
+            // Dentro Mono.defer: un'eccezione lanciata da call.get() diventa un errore della Mono e
+            // passa per doOnError e doFinally, che chiudono la chiamata e rilasciano il permesso
+            return Mono.defer(call)
+                    .doOnSuccess(result -> {
+                        circuitBreaker.onSuccess();
+                        record(Outcome.SUCCESS, start);
+                    })
+                    .doOnError(e -> {
+                        if (e instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError()) {
+                            circuitBreaker.onSuccess();
+                            record(Outcome.CLIENT_ERROR, start);
+                        } else {
+                            circuitBreaker.onFailure();
+                            record(outcomeOf(e), start);
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        circuitBreaker.onCancel();
+                        record(Outcome.CANCELLED, start);
+                    })
+                    .doFinally(signal -> bulkhead.release());
+        });
+    }
+
+    private void record(Outcome outcome, long start) {
+        timers.computeIfAbsent(outcome, o -> Timer.builder(METRIC)
+                        .description("Chiamate verso i servizi a valle")
+                        .tag("service", name)
+                        .tag("outcome", o.tag())
+                        .register(meterRegistry))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static Outcome outcomeOf(Throwable e) {
+        if (e instanceof HttpServerErrorException
+                || e instanceof WebClientResponseException response && response.getStatusCode().is5xxServerError()) {
+            return Outcome.SERVER_ERROR;
+        }
+        if (e instanceof ResourceAccessException || e instanceof WebClientRequestException) {
+            return Outcome.IO_ERROR;
+        }
+        return Outcome.ERROR;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public FallbackPolicy getReadFallback() {
+        return readFallback;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("circuitBreaker", circuitBreaker.stats());
+        stats.put("bulkhead", bulkhead.stats());
+        stats.put("readFallback", readFallback);
+        return stats;
+    }
+}
@@ -0,0 +1,58 @@
+package com.dipartimento.reviewservice.service.resilience;
+
+import com.dipartimento.reviewservice.config.DownstreamProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Un DownstreamGuard per ciascun servizio a valle (auth, event, booking), configurato da review.downstream.*.resilience.
+ */
+@Component
+public class DownstreamGuards {
+
+    private final DownstreamGuard auth;
+    private final DownstreamGuard event;
+    private final DownstreamGuard booking;
+
+    @Autowired
+    public DownstreamGuards(DownstreamProperties properties, MeterRegistry meterRegistry) {
+        this.auth = create("auth", properties.getAuth().getResilience(), meterRegistry);
+        this.event = create("event", properties.getEvent().getResilience(), meterRegistry);
+        this.booking = create("booking", properties.getBooking().getResilience(), meterRegistry);
+    }
+
+    public DownstreamGuard auth() {
+        return auth;
+    }
+
+    public DownstreamGuard event() {
+        return event;
+    }
+
+    public DownstreamGuard booking() {
+        return booking;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (DownstreamGuard guard : new DownstreamGuard[]{auth, event, booking}) {
+            stats.put(guard.getName(), guard.stats());
+        }
+        return stats;
+    }
+
+    private static DownstreamGuard create(String name, DownstreamProperties.Resilience settings, MeterRegistry meterRegistry) {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(
+                settings.getSlidingWindowSize(),
+                settings.getMinimumCalls(),
+                settings.getFailureRateThreshold(),
+                settings.getOpenDuration().toMillis(),
+                settings.getHalfOpenCalls());
+        Bulkhead bulkhead = new Bulkhead(settings.getMaxConcurrentCalls(), settings.getMaxWait().toMillis());
+        return new DownstreamGuard(name, circuitBreaker, bulkhead, settings.getReadFallback(), meterRegistry);
+    }
+}
@@ -0,0 +1,13 @@
+package com.dipartimento.reviewservice.service.resilience;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Chiamata non eseguita perché il circuito è aperto o il bulkhead è pieno.
+ */
+public class DownstreamUnavailableException extends RestClientException {
+
+    public DownstreamUnavailableException(String downstream, String reason) {
+        super("Servizio " + downstream + " non disponibile: " + reason);
+    }
+}
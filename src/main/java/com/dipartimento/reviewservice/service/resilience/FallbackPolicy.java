@@ -0,0 +1,10 @@
+package com.dipartimento.reviewservice.service.resilience;
+
+/**
+ * Comportamento delle letture quando un servizio a valle non risponde.
+ * Le scritture falliscono sempre in modo chiuso (FAIL_CLOSED).
+ */
+public enum FallbackPolicy {
+    FAIL_CLOSED,
+    SERVE_STALE
+}
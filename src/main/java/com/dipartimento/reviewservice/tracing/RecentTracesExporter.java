@@ -0,0 +1,147 @@
+package com.dipartimento.reviewservice.tracing;
+
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exporter in memoria, per la diagnostica senza un collector esterno: raccoglie gli span per traccia e,
+ * quando termina lo span radice locale (la richiesta HTTP), conserva la traccia tra le ultime max-traces.
+ * Gli span arrivano a blocchi dal BatchSpanProcessor, fuori dai thread delle richieste.
+ *
+ * Gli span di una traccia la cui radice non arriva (o che finiscono dopo la radice) restano in attesa
+ * finché non vengono scartati: al più max-pending tracce incomplete.
+ */
+public class RecentTracesExporter implements SpanExporter {
+
+    private record Trace(String traceId, SpanData root, List<SpanData> spans) {
+
+        long durationNanos() {
+            return root.getEndEpochNanos() - root.getStartEpochNanos();
+        }
+    }
+
+    private final int maxTraces;
+    private final Deque<Trace> completed = new ArrayDeque<>();
+    private final Map<String, List<SpanData>> pending;
+    private long exportedSpans;
+    private long droppedTraces;
+
+    public RecentTracesExporter(int maxTraces, int maxPending) {
+        this.maxTraces = maxTraces;
+        this.pending = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<SpanData>> eldest) {
+                if (size() > maxPending) {
+                    droppedTraces++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        for (SpanData span : spans) {
+            exportedSpans++;
+            List<SpanData> trace = pending.computeIfAbsent(span.getTraceId(), id -> new ArrayList<>());
+            trace.add(span);
+            if (isLocalRoot(span)) {
+                pending.remove(span.getTraceId());
+                if (completed.size() == maxTraces) {
+                    completed.removeFirst();
+                }
+                completed.addLast(new Trace(span.getTraceId(), span, trace));
+            }
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        completed.clear();
+        pending.clear();
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /**
+     * Le limit tracce più lente tra le ultime conservate, ciascuna con i suoi span in ordine di inizio
+     * (offset e durata in millisecondi rispetto all'inizio della traccia).
+     */
+    public List<Map<String, Object>> slowest(int limit) {
+        List<Trace> traces;
+        synchronized (this) {
+            traces = new ArrayList<>(completed);
+        }
+        return traces.stream()
+                .sorted(Comparator.comparingLong(Trace::durationNanos).reversed())
+                .limit(limit)
+                .map(RecentTracesExporter::view)
+                .toList();
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("traces", completed.size());
+        stats.put("maxTraces", maxTraces);
+        stats.put("pendingTraces", pending.size());
+        stats.put("exportedSpans", exportedSpans);
+        stats.put("droppedTraces", droppedTraces);
+        return stats;
+    }
+
+    private static boolean isLocalRoot(SpanData span) {
+        SpanContext parent = span.getParentSpanContext();
+        return !parent.isValid() || parent.isRemote();
+    }
+
+    private static Map<String, Object> view(Trace trace) {
+        long start = trace.root().getStartEpochNanos();
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("traceId", trace.traceId());
+        view.put("name", trace.root().getName());
+        view.put("start", Instant.ofEpochSecond(0, start).toString());
+        view.put("durationMs", millis(trace.durationNanos()));
+        view.put("spans", trace.spans().stream()
+                .sorted(Comparator.comparingLong(SpanData::getStartEpochNanos))
+                .map(span -> spanView(span, start))
+                .toList());
+        return view;
+    }
+
+    private static Map<String, Object> spanView(SpanData span, long traceStart) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("spanId", span.getSpanId());
+        view.put("parentSpanId", span.getParentSpanContext().isValid() ? span.getParentSpanId() : null);
+        view.put("name", span.getName());
+        view.put("kind", span.getKind().name());
+        view.put("offsetMs", millis(span.getStartEpochNanos() - traceStart));
+        view.put("durationMs", millis(span.getEndEpochNanos() - span.getStartEpochNanos()));
+        view.put("status", span.getStatus().getStatusCode().name());
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), value));
+        view.put("attributes", attributes);
+        return view;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
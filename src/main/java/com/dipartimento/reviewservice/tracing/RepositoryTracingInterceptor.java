@@ -0,0 +1,44 @@
+package com.dipartimento.reviewservice.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Uno span per ogni chiamata a un metodo del repository, figlio dello span corrente. Fuori da una
+ * traccia (job di cancellazione, scrittura differita) non crea nulla. Usa il Tracer e non una
+ * Observation per non duplicare il timer spring.data.repository.invocations.
+ */
+class RepositoryTracingInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<Tracer> tracers;
+    private final String repository;
+
+    RepositoryTracingInterceptor(ObjectProvider<Tracer> tracers, Class<?> repositoryInterface) {
+        this.tracers = tracers;
+        this.repository = repositoryInterface.getSimpleName();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Tracer tracer = tracers.getIfAvailable();
+        if (tracer == null || tracer.currentSpan() == null) {
+            return invocation.proceed();
+        }
+        Span span = tracer.nextSpan()
+                .name(repository + "." + invocation.getMethod().getName())
+                .tag("db.repository", repository)
+                .tag("db.operation", invocation.getMethod().getName())
+                .start();
+        try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.dipartimento.reviewservice.tracing;
+
+import io.micrometer.observation.ObservationPredicate;
+import io.micrometer.tracing.Tracer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Tracing delle richieste: Spring Boot crea gli span delle richieste HTTP e delle chiamate fatte con i
+ * RestTemplate/WebClient osservati (con l'header traceparent W3C in uscita); qui si aggiungono gli span
+ * dei repository Spring Data e l'exporter in memoria letto da /internal/stats/traces.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public RecentTracesExporter recentTracesExporter(@Value("${review.tracing.max-traces:1000}") int maxTraces,
+                                                     @Value("${review.tracing.max-pending:10000}") int maxPending) {
+        return new RecentTracesExporter(maxTraces, maxPending);
+    }
+
+    @Bean
+    public static BeanPostProcessor repositoryTracing(ObjectProvider<Tracer> tracers) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxy, information) -> proxy.addAdvice(
+                                    new RepositoryTracingInterceptor(tracers, information.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Scrape di Prometheus e diagnostica non finiscono tra le tracce (né nelle metriche http.server.requests)
+    @Bean
+    public ObservationPredicate ignoreInternalRequests() {
+        return (name, context) -> {
+            String path = null;
+            if (context instanceof org.springframework.http.server.observation.ServerRequestObservationContext servlet) {
+                path = servlet.getCarrier().getRequestURI();
+            } else if (context instanceof org.springframework.http.server.reactive.observation.ServerRequestObservationContext reactive) {
+                path = reactive.getCarrier().getPath().value();
+            }
+            return path == null || !(path.startsWith("/actuator") || path.startsWith("/internal"));
+        };
+    }
+}
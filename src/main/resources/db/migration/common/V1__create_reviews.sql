@@ -0,0 +1,8 @@
+-- Schema iniziale della tabella reviews (sui database esistenti viene saltato: baseline-on-migrate)
+CREATE TABLE IF NOT EXISTS reviews (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    event_id BIGINT,
+    user_id  BIGINT,
+    rating   INTEGER NOT NULL,
+    comment  VARCHAR(255)
+);
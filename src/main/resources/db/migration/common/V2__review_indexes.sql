@@ -0,0 +1,22 @@
+-- Indici per i percorsi di accesso di ReviewRepository.
+--
+-- uk_reviews_user_event (user_id, event_id): una sola recensione per utente ed evento; l'indice univoco
+--   serve findByUserId / findEventIdsByUserId (prefisso user_id) e exists/find/deleteByUserIdAndEventId.
+-- idx_reviews_event_rating (event_id, rating): serve findByEventId ed è coprente per gli aggregati
+--   dei riepiloghi voti (countRatingsForEvent / countRatingsByEvent leggono solo l'indice).
+--
+-- Nota: eseguita in transazione, quindi senza CONCURRENTLY; su tabelle molto grandi va pianificata
+-- in una finestra di manutenzione.
+
+-- Eventuali duplicati storici (user_id, event_id): si tiene la recensione più recente. Solo le righe con
+-- entrambe le chiavi: il vincolo UNIQUE non considera uguali i NULL, e GROUP BY li raggrupperebbe
+-- cancellando righe che non sono duplicati
+DELETE FROM reviews
+WHERE user_id IS NOT NULL AND event_id IS NOT NULL
+  AND id NOT IN (SELECT MAX(id) FROM reviews
+                 WHERE user_id IS NOT NULL AND event_id IS NOT NULL
+                 GROUP BY user_id, event_id);
+
+ALTER TABLE reviews ADD CONSTRAINT uk_reviews_user_event UNIQUE (user_id, event_id);
+
+CREATE INDEX idx_reviews_event_rating ON reviews (event_id, rating);
@@ -0,0 +1,7 @@
+-- Equivalente H2 di postgresql/V3: id da sequenza con incremento 50 per il batching degli insert
+CREATE SEQUENCE reviews_seq INCREMENT BY 50;
+
+ALTER SEQUENCE reviews_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM reviews);
+
+ALTER TABLE reviews ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE reviews ALTER COLUMN id SET DEFAULT NEXT VALUE FOR reviews_seq;
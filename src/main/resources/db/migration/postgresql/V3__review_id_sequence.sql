@@ -0,0 +1,10 @@
+-- Id generati da sequenza con incremento 50 (invece di IDENTITY) così Hibernate può raggruppare
+-- gli insert in batch JDBC: ogni nextval riserva un blocco di 50 id (optimizer "pooled").
+-- La colonna usa la stessa sequenza come default, per gli insert SQL nativi (upsert).
+CREATE SEQUENCE IF NOT EXISTS reviews_seq INCREMENT BY 50;
+
+SELECT setval('reviews_seq', COALESCE((SELECT MAX(id) FROM reviews), 0) + 50, false);
+
+ALTER TABLE reviews ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE reviews ALTER COLUMN id SET DEFAULT nextval('reviews_seq');
+ALTER SEQUENCE reviews_seq OWNED BY reviews.id;
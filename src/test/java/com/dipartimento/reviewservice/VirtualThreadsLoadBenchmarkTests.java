@@ -0,0 +1,203 @@
+package com.dipartimento.reviewservice;
+
+import com.dipartimento.reviewservice.support.TestTokens;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Carico con 5000 client concorrenti su GET /api/reviews/event/{id} (utente non organizzatore:
+ * ogni richiesta chiama il Booking service, qui uno stub con 50 ms di latenza), confrontando
+ * thread di piattaforma (default) e spring.threads.virtual.enabled=true.
+ * Riporta throughput, latenze, picco di thread di piattaforma e di heap usato.
+ * Non fa parte della build normale:
+ *
+ *   mvn test -Dtest=VirtualThreadsLoadBenchmarkTests -Dbenchmark=true [-Dclients=5000 -Dlatency=50 -Dseconds=20]
+ *
+ * Client, servizio e stub girano nella stessa JVM: servono diversi core perché i numeri abbiano senso.
+ *
+ * Per cercare pinning dei carrier thread aggiungere -DargLine=-Djdk.tracePinnedThreads=short
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VirtualThreadsLoadBenchmarkTests {
+
+    private static final int CLIENTS = Integer.getInteger("clients", 5_000);
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration MEASURE = Duration.ofSeconds(Integer.getInteger("seconds", 20));
+    private static final int DOWNSTREAM_LATENCY_MILLIS = Integer.getInteger("latency", 50);
+    private static final long EVENT_ID = 42L;
+
+    @Test
+    void comparePlatformAndVirtualThreads() throws Exception {
+        HttpServer stub = startDownstreamStub();
+        try {
+            String platform = run(stub, false);
+            String virtual = run(stub, true);
+            System.out.println();
+            System.out.println("modo         req/s    p50 ms   p99 ms   errori  thread max  heap max MB");
+            System.out.println(platform);
+            System.out.println(virtual);
+        } finally {
+            stub.stop(0);
+        }
+    }
+
+    private String run(HttpServer stub, boolean virtualThreads) throws Exception {
+        String stubUrl = "http://localhost:" + stub.getAddress().getPort();
+        ConfigurableApplicationContext app = new SpringApplicationBuilder(ReviewServiceApplication.class)
+                .profiles("test")
+                // Argomenti da riga di comando: hanno la precedenza su application.properties
+                .run(
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--server.tomcat.accept-count=" + CLIENTS,
+                        "--review.invalidation.transport=none",
+                        // Stessi limiti nei due modi: cambia solo il modello di thread
+                        "--review.checks.pool-size=200",
+                        "--review.downstream.event.base-url=" + stubUrl,
+                        "--review.downstream.booking.base-url=" + stubUrl,
+                        "--review.downstream.booking.max-connections=" + CLIENTS,
+                        "--review.downstream.booking.max-connections-per-route=" + CLIENTS,
+                        "--review.downstream.booking.resilience.max-concurrent-calls=" + CLIENTS,
+                        "--review.downstream.booking.resilience.max-wait=5s",
+                        "--review.downstream.booking.read-timeout=" + (DOWNSTREAM_LATENCY_MILLIS + 5_000) + "ms",
+                        "--review.checks.timeout=" + (DOWNSTREAM_LATENCY_MILLIS + 10_000) + "ms");
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        try {
+            int port = app.getEnvironment().getProperty("local.server.port", Integer.class);
+            // I System.out/err di debug del servizio non devono misurare la console
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+            return load(port, virtualThreads ? "virtual" : "platform");
+        } finally {
+            System.setOut(out);
+            System.setErr(err);
+            app.close();
+        }
+    }
+
+    private String load(int port, String mode) throws Exception {
+        String token = TestTokens.token(7, "USER");
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/reviews/event/" + EVENT_ID))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(60))
+                .build();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicLong errors = new AtomicLong();
+        AtomicLong maxHeap = new AtomicLong();
+        // Latenze in microsecondi, per client (l[0] = quante)
+        List<int[]> latencies = new ArrayList<>();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder().executor(clients).build()) {
+            for (int i = 0; i < CLIENTS; i++) {
+                int[] mine = new int[2_000];
+                latencies.add(mine);
+                clients.execute(() -> {
+                    int n = 0;
+                    while (!stop.get()) {
+                        long start = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        if (measuring.get()) {
+                            if (!ok) {
+                                errors.incrementAndGet();
+                            } else if (n < mine.length - 1) {
+                                mine[++n] = (int) ((System.nanoTime() - start) / 1_000);
+                                mine[0] = n;
+                            }
+                        }
+                    }
+                });
+            }
+
+            Thread.sleep(WARMUP.toMillis());
+            threads.resetPeakThreadCount();
+            measuring.set(true);
+            long deadline = System.nanoTime() + MEASURE.toNanos();
+            while (System.nanoTime() < deadline) {
+                maxHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                Thread.sleep(100);
+            }
+            measuring.set(false);
+            stop.set(true);
+            clients.shutdown();
+            clients.awaitTermination(60, TimeUnit.SECONDS);
+        }
+
+        int total = latencies.stream().mapToInt(l -> l[0]).sum();
+        int[] all = new int[total];
+        int pos = 0;
+        for (int[] l : latencies) {
+            System.arraycopy(l, 1, all, pos, l[0]);
+            pos += l[0];
+        }
+        Arrays.sort(all);
+        double p50 = all.length == 0 ? 0 : all[all.length / 2] / 1e3;
+        double p99 = all.length == 0 ? 0 : all[(int) (all.length * 0.99)] / 1e3;
+        return String.format("%-9s %8.0f %9.1f %8.1f %8d %11d %12d", mode, total / (double) MEASURE.toSeconds(),
+                p50, p99, errors.get(), threads.getPeakThreadCount(), maxHeap.get() / (1024 * 1024));
+    }
+
+    // Event service (evento con altro organizzatore) e Booking service (prenotato) con latenza fissa
+    private static HttpServer startDownstreamStub() throws Exception {
+        // Di default l'HttpServer del JDK chiude le connessioni keep-alive oltre le 200 inattive: il pool
+        // del servizio le ritroverebbe chiuse (NoHttpResponseException) e il circuito si aprirebbe
+        System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(CLIENTS * 2));
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), CLIENTS * 2);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/events/internal/", exchange -> respond(exchange,
+                "{\"id\":" + EVENT_ID + ",\"organizerId\":999,\"archived\":false,\"status\":\"ACTIVE\"}"));
+        server.createContext("/api/bookings/check", exchange -> {
+            try {
+                Thread.sleep(DOWNSTREAM_LATENCY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, "true");
+        });
+        server.start();
+        return server;
+    }
+
+    private static void respond(com.sun.net.httpserver.HttpExchange exchange, String body) throws java.io.IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
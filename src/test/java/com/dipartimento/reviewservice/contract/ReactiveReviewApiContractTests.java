@@ -0,0 +1,11 @@
+package com.dipartimento.reviewservice.contract;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Contratto /api/reviews sull'API reattiva (ReactiveReviewController, Netty, WebClient, R2DBC).
+ * test dopo reactive: vale il database H2 del profilo di test anche per R2DBC.
+ */
+@ActiveProfiles({"reactive", "test"})
+class ReactiveReviewApiContractTests extends ReviewApiContractTests {
+}
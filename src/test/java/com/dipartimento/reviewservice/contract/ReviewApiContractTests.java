@@ -0,0 +1,596 @@
+package com.dipartimento.reviewservice.contract;
+
+import com.dipartimento.reviewservice.controller.InternalToken;
+import com.dipartimento.reviewservice.service.EventReviewsCache;
+import com.dipartimento.reviewservice.service.ReviewVersionTracker;
+import com.dipartimento.reviewservice.support.DownstreamStub;
+import com.dipartimento.reviewservice.support.TestTokens;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Contratto HTTP di /api/reviews, identico per l'API servlet (ReviewController) e per quella reattiva
+ * (profilo reactive): le sottoclassi scelgono solo i profili. Event e Booking service sono uno stub
+ * condiviso; ogni test usa eventi e utenti nuovi, così cache e database condivisi non interferiscono.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+// Nei test Spring Boot spegne l'esportazione delle metriche: serve per /actuator/prometheus
+@AutoConfigureObservability
+abstract class ReviewApiContractTests {
+
+    private static final AtomicLong IDS = new AtomicLong(900_000);
+
+    private static final DownstreamStub STUB = DownstreamStub.start();
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private ReviewVersionTracker versionTracker;
+
+    @Autowired
+    private EventReviewsCache eventReviewsCache;
+
+    @DynamicPropertySource
+    static void downstreamStub(DynamicPropertyRegistry registry) {
+        String url = STUB.url();
+        registry.add("review.downstream.auth.base-url", () -> url);
+        registry.add("review.downstream.event.base-url", () -> url);
+        registry.add("review.downstream.booking.base-url", () -> url);
+    }
+
+    @Test
+    void rejectsMissingBearerToken() {
+        client.post().uri("/api/reviews")
+                .header(HttpHeaders.AUTHORIZATION, "Basic YWRtaW46YWRtaW4=")
+                .bodyValue(Map.of("eventId", 1, "rating", 5))
+                .exchange()
+                .expectStatus().isUnauthorized()
+                .expectBody(String.class).isEqualTo("Token mancante o malformato");
+    }
+
+    @Test
+    void createsReviewForBookedPastEvent() {
+        long userId = newId();
+        long eventId = pastEvent(newId());
+        book(userId, eventId);
+
+        client.post().uri("/api/reviews")
+                .header(HttpHeaders.AUTHORIZATION, bearer(userId, "USER"))
+                .bodyValue(Map.of("eventId", eventId, "rating", 4, "comment", "Bello"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.id").isNumber()
+                .jsonPath("$.eventId").isEqualTo(eventId)
+                .jsonPath("$.userId").isEqualTo(userId)
+                .jsonPath("$.rating").isEqualTo(4)
+                .jsonPath("$.comment").isEqualTo("Bello");
+
+        client.get().uri("/api/reviews/me")
+                .header(HttpHeaders.AUTHORIZATION, bearer(userId, "USER"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].eventId").isEqualTo(eventId);
+    }
+
+    @Test
+    void resubmittingReplacesTheReview() {
+        long userId = newId();
+        long eventId = pastEvent(newId());
+        book(userId, eventId);
+
+        Number first = create(userId, eventId, 2);
+        Number second = create(userId, eventId, 5);
+        assertEquals(first.longValue(), second.longValue());
+
+        client.get().uri("/api/reviews/event/{eventId}/summary", eventId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(1)
+                .jsonPath("$.average").isEqualTo(5.0);
+    }
+
+    @Test
+    void deniesReviewWithoutBooking() {
+        long userId = newId();
+        long eventId = pastEvent(newId());
+
+        client.post().uri("/api/reviews")
+                .header(HttpHeaders.AUTHORIZATION, bearer(userId, "USER"))
+                .bodyValue(Map.of("eventId", eventId, "rating", 3))
+                .exchange()
+                .expectStatus().isForbidden()
+                .expectBody(String.class).isEqualTo("Non hai prenotato questo evento");
+    }
+
+    @Test
+    void deniesReviewBeforeTheEventIsOver() {
+        long userId = newId();
+        long eventId = newId();
+        STUB.event(eventId, newId(), false);
+        book(userId, eventId);
+
+        client.post().uri("/api/reviews")
+                .header(HttpHeaders.AUTHORIZATION, bearer(userId, "USER"))
+                .bodyValue(Map.of("eventId", eventId, "rating", 3))
+                .exchange()
+                .expectStatus().isForbidden()
+                .expectBody(String.class).isEqualTo("Puoi recensire solo a partire dal giorno successivo all'evento.");
+    }
+
+    @Test
+    void eventReviewsAreVisibleToAttendeesAndOrganizers() {
+        long userId = newId();
+        long organizerId = newId();
+        long eventId = pastEvent(organizerId);
+        book(userId, eventId);
+        create(userId, eventId, 4);
+
+        client.get().uri("/api/reviews/event/{eventId}", eventId)
+                .header(HttpHeaders.AUTHORIZATION, bearer(newId(), "USER"))
+                .exchange()
+                .expectStatus().isForbidden()
+                .expectBody(String.class).isEqualTo("Accesso negato alle recensioni");
+
+        for (String token : List.of(bearer(userId, "USER"), bearer(organizerId, "USER"), bearer(newId(), "ORGANIZER"))) {
+            client.get().uri("/api/reviews/event/{eventId}", eventId)
+                    .header(HttpHeaders.AUTHORIZATION, token)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                    .expectBody()
+                    .jsonPath("$.length()").isEqualTo(1)
+                    .jsonPath("$[0].rating").isEqualTo(4);
+        }
+    }
+
+    @Test
+    void eventReviewsSupportConditionalGet() {
+        long userId = newId();
+        long eventId = pastEvent(newId());
+        book(userId, eventId);
+        create(userId, eventId, 3);
+
+        String etag = client.get().uri("/api/reviews/event/{eventId}", eventId)
+                .header(HttpHeaders.AUTHORIZATION, bearer(userId, "USER"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "no-cache, private")
+                .returnResult(String.class).getResponseHeaders().getETag();
+        assertNotNull(etag);
+
+        client.get().uri("/api/reviews/event/{eventId}", eventId)
+                .header(HttpHeaders.AUTHORIZATION, bearer(userId, "USER"))
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        // Chi non può leggere l'elenco riceve 403 anche con l'ETag giusto: un 304 rivelerebbe che non è cambiato
+        client.get().uri("/api/reviews/event/{eventId}", eventId)
+                .header(HttpHeaders.AUTHORIZATION, bearer(newId(), "USER"))
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isForbidden();
+
+        // L'ETag dipende solo dai dati: vale ancora quando i contatori locali ripartono (riavvio, altra istanza)
+        versionTracker.invalidateAll();
+        client.get().uri("/api/reviews/event/{eventId}", eventId)
+                .header(HttpHeaders.AUTHORIZATION, bearer(userId, "USER"))
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        create(userId, eventId, 5);
+        client.get().uri("/api/reviews/event/{eventId}", eventId)
+                .header(HttpHeaders.AUTHORIZATION, bearer(userId, "USER"))
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].rating").isEqualTo(5);
+    }
+
+    @Test
+    void myReviewsAreRevalidatedFromTheCache() throws InterruptedException {
+        long userId = newId();
+        long organizerId = newId();
+        long eventId = pastEvent(organizerId);
+        book(userId, eventId);
+        create(userId, eventId, 4);
+
+        String etag = client.get().uri("/api/reviews/me")
+                .header(HttpHeaders.AUTHORIZATION, bearer(userId, "USER"))
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class).getResponseHeaders().getETag();
+        assertNotNull(etag);
+
+        // Il 304 arriva dall'elenco in cache: nessuna query né serializzazione
+        long misses = (Long) eventReviewsCache.stats().get("misses");
+        client.get().uri("/api/reviews/me")
+                .header(HttpHeaders.AUTHORIZATION, bearer(userId, "USER"))
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified();
+        assertEquals(misses, eventReviewsCache.stats().get("misses"));
+
+        // La cancellazione di tutte le recensioni dell'evento (job asincrono) cambia anche l'elenco dell'autore
+        client.delete().uri("/api/reviews/event/{eventId}", eventId)
+                .header(HttpHeaders.AUTHORIZATION, bearer(organizerId, "ORGANIZER"))
+                .exchange()
+                .expectStatus().isAccepted();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        int status;
+        do {
+            Thread.sleep(20);
+            status = client.get().uri("/api/reviews/me")
+                    .header(HttpHeaders.AUTHORIZATION, bearer(userId, "USER"))
+                    .header(HttpHeaders.IF_NONE_MATCH, etag)
+                    .exchange()
+                    .returnResult(String.class).getStatus().value();
+        } while (status == 304 && System.nanoTime() < deadline);
+        assertEquals(200, status);
+    }
+
+    @Test
+    void updatesAndDeletesOnlyOwnReviews() {
+        long userId = newId();
+        long eventId = pastEvent(newId());
+        book(userId, eventId);
+
+        client.put().uri("/api/reviews/user/{userId}/event/{eventId}", userId, eventId)
+                .header(HttpHeaders.AUTHORIZATION, bearer(userId, "USER"))
+                .bodyValue(Map.of("rating", 1))
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody(String.class).isEqualTo("Recensione non trovata");
+
+        create(userId, eventId, 3);
+        client.put().uri("/api/reviews/user/{userId}/event/{eventId}", userId, eventId)
+                .header(HttpHeaders.AUTHORIZATION, bearer(userId, "USER"))
+                .bodyValue(Map.of("rating", 1, "comment", "Ripensandoci"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.rating").isEqualTo(1)
+                .jsonPath("$.comment").isEqualTo("Ripensandoci");
+
+        client.delete().uri("/api/reviews/user/{userId}/event/{eventId}", userId, eventId)
+                .header(HttpHeaders.AUTHORIZATION, bearer(newId(), "USER"))
+                .exchange()
+                .expectStatus().isForbidden()
+                .expectBody(String.class).isEqualTo("Non autorizzato");
+
+        client.delete().uri("/api/reviews/user/{userId}/event/{eventId}", userId, eventId)
+                .header(HttpHeaders.AUTHORIZATION, bearer(userId, "USER"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.message").isEqualTo("Recensioni eliminate");
+
+        client.get().uri("/api/reviews/me")
+                .header(HttpHeaders.AUTHORIZATION, bearer(userId, "USER"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.length()").isEqualTo(0);
+    }
+
+    @Test
+    void pagesWithCursorAndStreamsNdjson() {
+        long userId = newId();
+        long firstEvent = pastEvent(newId());
+        long secondEvent = pastEvent(newId());
+        book(userId, firstEvent);
+        book(userId, secondEvent);
+        long firstId = create(userId, firstEvent, 4).longValue();
+        long secondId = create(userId, secondEvent, 5).longValue();
+
+        client.get().uri("/api/reviews?after={after}&limit=1", firstId - 1)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Next-Cursor", String.valueOf(firstId))
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].id").isEqualTo(firstId);
+
+        List<String> lines = new ArrayList<>();
+        client.get().uri("/api/reviews?after={after}", firstId - 1)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .value(body -> body.lines().forEach(lines::add));
+        assertTrue(lines.size() >= 2);
+        assertTrue(lines.get(0).contains("\"id\":" + firstId));
+        assertTrue(lines.get(1).contains("\"id\":" + secondId));
+    }
+
+    @Test
+    void summaryBatchIsBounded() {
+        String ids = String.join(",", java.util.Collections.nCopies(501, "1"));
+        client.get().uri("/api/reviews/summary?eventIds=" + ids)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class).isEqualTo("Al massimo 500 eventi per richiesta");
+    }
+
+    @Test
+    void purgeJobsBelongToWhoeverStartedThem() {
+        long userId = newId();
+        long eventId = pastEvent(newId());
+        book(userId, eventId);
+        create(userId, eventId, 2);
+
+        client.delete().uri("/api/reviews/user/{userId}", userId)
+                .header(HttpHeaders.AUTHORIZATION, bearer(newId(), "USER"))
+                .exchange()
+                .expectStatus().isForbidden();
+
+        String location = client.delete().uri("/api/reviews/user/{userId}", userId)
+                .header(HttpHeaders.AUTHORIZATION, bearer(userId, "USER"))
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectBody()
+                .jsonPath("$.target").isEqualTo("USER")
+                .jsonPath("$.targetId").isEqualTo(userId)
+                .returnResult().getResponseHeaders().getLocation().toString();
+
+        client.get().uri(location)
+                .header(HttpHeaders.AUTHORIZATION, bearer(newId(), "USER"))
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody(String.class).isEqualTo("Job non trovato");
+
+        client.get().uri(location)
+                .header(HttpHeaders.AUTHORIZATION, bearer(userId, "USER"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.targetId").isEqualTo(userId);
+    }
+
+    @Test
+    void eventPurgeIsOnlyForTheOrganizerAndFailsClosed() {
+        long organizerId = newId();
+        long eventId = pastEvent(organizerId);
+
+        client.delete().uri("/api/reviews/event/{eventId}", eventId)
+                .header(HttpHeaders.AUTHORIZATION, bearer(newId(), "ORGANIZER"))
+                .exchange()
+                .expectStatus().isForbidden();
+
+        client.delete().uri("/api/reviews/event/{eventId}", eventId)
+                .header(HttpHeaders.AUTHORIZATION, bearer(organizerId, "ORGANIZER"))
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectBody().jsonPath("$.target").isEqualTo("EVENT");
+
+        // Event service giù: 503, la cancellazione non viene autorizzata
+        long otherEvent = pastEvent(organizerId);
+        STUB.resetCounters();
+        STUB.setErrorRate(1.0);
+        try {
+            client.delete().uri("/api/reviews/event/{eventId}", otherEvent)
+                    .header(HttpHeaders.AUTHORIZATION, bearer(organizerId, "ORGANIZER"))
+                    .exchange()
+                    .expectStatus().isEqualTo(503);
+            // Una sola chiamata: il client HTTP non ripete da sé le risposte 503
+            assertEquals(1, STUB.injectedErrors());
+        } finally {
+            STUB.setErrorRate(0);
+        }
+    }
+
+    @Test
+    void checksBookingsInBulk() {
+        long userId = newId();
+        long organizerId = newId();
+        long booked = pastEvent(organizerId);
+        long notBooked = pastEvent(organizerId);
+        book(userId, booked);
+        List<Map<String, Long>> pairs = List.of(Map.of("userId", userId, "eventId", booked),
+                Map.of("userId", userId, "eventId", notBooked));
+
+        client.post().uri("/api/reviews/eligibility")
+                .header(HttpHeaders.AUTHORIZATION, bearer(userId, "USER"))
+                .bodyValue(pairs)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].eventId").isEqualTo(booked)
+                .jsonPath("$[0].booked").isEqualTo(true)
+                .jsonPath("$[1].eventId").isEqualTo(notBooked)
+                .jsonPath("$[1].booked").isEqualTo(false);
+
+        client.post().uri("/api/reviews/eligibility")
+                .header(HttpHeaders.AUTHORIZATION, bearer(newId(), "USER"))
+                .bodyValue(pairs)
+                .exchange()
+                .expectStatus().isForbidden()
+                .expectBody(String.class).isEqualTo("Non autorizzato");
+
+        client.post().uri("/api/reviews/eligibility")
+                .header(HttpHeaders.AUTHORIZATION, bearer(organizerId, "ORGANIZER"))
+                .bodyValue(pairs)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].booked").isEqualTo(true);
+
+        // Il ruolo ORGANIZER non basta: solo gli eventi che organizza
+        client.post().uri("/api/reviews/eligibility")
+                .header(HttpHeaders.AUTHORIZATION, bearer(newId(), "ORGANIZER"))
+                .bodyValue(pairs)
+                .exchange()
+                .expectStatus().isForbidden()
+                .expectBody(String.class).isEqualTo("Non autorizzato");
+        client.post().uri("/api/reviews/eligibility")
+                .header(HttpHeaders.AUTHORIZATION, bearer(organizerId, "ORGANIZER"))
+                .bodyValue(List.of(pairs.get(0), Map.of("userId", userId, "eventId", pastEvent(newId()))))
+                .exchange()
+                .expectStatus().isForbidden();
+
+        client.post().uri("/api/reviews/eligibility")
+                .header(HttpHeaders.AUTHORIZATION, bearer(userId, "USER"))
+                .bodyValue(java.util.Collections.nCopies(501, pairs.get(0)))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class).isEqualTo("Al massimo 500 coppie per richiesta");
+    }
+
+    @Test
+    void internalEndpointsNeedTheServiceToken() {
+        long eventId = newId();
+
+        // Statistiche e tracce (URL, id, tempi dei servizi a valle) non sono pubbliche
+        client.get().uri("/internal/stats/traces")
+                .exchange()
+                .expectStatus().isForbidden();
+        client.get().uri("/internal/stats/event-cache")
+                .header(InternalToken.HEADER, "segreto-sbagliato")
+                .exchange()
+                .expectStatus().isForbidden();
+        client.get().uri("/internal/stats/event-cache")
+                .header(InternalToken.HEADER, "segreto-dei-test")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.hits").isNumber();
+
+        client.post().uri("/internal/invalidate/event/{eventId}", eventId)
+                .exchange()
+                .expectStatus().isForbidden();
+        client.post().uri("/internal/invalidate/event/{eventId}", eventId)
+                .header(InternalToken.HEADER, "segreto-sbagliato")
+                .exchange()
+                .expectStatus().isForbidden();
+        client.post().uri("/internal/invalidate/event/{eventId}", eventId)
+                .header(InternalToken.HEADER, "segreto-dei-test")
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+
+    @Test
+    void exposesPrometheusMetrics() {
+        long userId = newId();
+        long eventId = pastEvent(newId());
+        book(userId, eventId);
+        create(userId, eventId, 5);
+
+        String metrics = prometheus();
+        assertTrue(metrics.lines().anyMatch(line -> line.startsWith("review_downstream_calls_seconds_count{")
+                && line.contains("outcome=\"success\"") && line.contains("service=\"event\"")), metrics);
+        assertTrue(metrics.lines().anyMatch(line -> line.startsWith("review_downstream_calls_seconds_bucket{")
+                && line.contains("service=\"booking\"")));
+        for (String service : List.of("auth", "event", "booking")) {
+            for (String gauge : List.of("leased", "available", "pending", "max")) {
+                assertTrue(metrics.lines().anyMatch(line -> line.startsWith("review_http_pool_" + gauge + "_connections{")
+                        && line.contains("service=\"" + service + "\"")), gauge + " " + service);
+            }
+        }
+        assertTrue(metrics.lines().anyMatch(line -> line.startsWith("http_server_requests_seconds_bucket{")
+                && line.contains("uri=\"/api/reviews\"") && line.contains("method=\"POST\"")));
+    }
+
+    @Test
+    void tracesDownstreamCalls() {
+        long userId = newId();
+        long eventId = pastEvent(newId());
+        book(userId, eventId);
+        create(userId, eventId, 4);
+
+        // traceparent W3C: 00-<traceId>-<spanId>-<flags>
+        String traceparent = STUB.traceparent("/events/internal/" + eventId);
+        assertNotNull(traceparent);
+        Map<String, Object> trace = trace(traceparent.split("-")[1]);
+        assertNotNull(trace);
+
+        List<Map<String, Object>> spans = spans(trace);
+        assertEquals("SERVER", spans.get(0).get("kind"));
+        assertTrue(spans.stream().anyMatch(span -> "CLIENT".equals(span.get("kind"))
+                && String.valueOf(((Map<?, ?>) span.get("attributes")).get("http.url")).endsWith("/events/internal/" + eventId)));
+        assertTrue(spans.stream().anyMatch(span -> "CLIENT".equals(span.get("kind"))
+                && String.valueOf(((Map<?, ?>) span.get("attributes")).get("http.url")).contains("/api/bookings/check")));
+    }
+
+    /**
+     * La traccia traceId tra quelle esposte da /internal/stats/traces, null se non c'è.
+     */
+    @SuppressWarnings("unchecked")
+    Map<String, Object> trace(String traceId) {
+        Map<String, Object> body = client.get().uri("/internal/stats/traces?limit=100")
+                .header(InternalToken.HEADER, "segreto-dei-test")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Map.class)
+                .returnResult().getResponseBody();
+        return ((List<Map<String, Object>>) body.get("slowest")).stream()
+                .filter(trace -> traceId.equals(trace.get("traceId")))
+                .findFirst().orElse(null);
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Map<String, Object>> spans(Map<String, Object> trace) {
+        return (List<Map<String, Object>>) trace.get("spans");
+    }
+
+    static String traceparent(String path) {
+        return STUB.traceparent(path);
+    }
+
+    String prometheus() {
+        // Con gli istogrammi la risposta supera il limite di default di 256KB
+        return client.mutate().codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(16 * 1024 * 1024)).build()
+                .get().uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+    }
+
+    Number create(long userId, long eventId, int rating) {
+        return (Number) client.post().uri("/api/reviews")
+                .header(HttpHeaders.AUTHORIZATION, bearer(userId, "USER"))
+                .bodyValue(Map.of("eventId", eventId, "rating", rating))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Map.class)
+                .returnResult().getResponseBody().get("id");
+    }
+
+    static long newId() {
+        return IDS.incrementAndGet();
+    }
+
+    static long pastEvent(long organizerId) {
+        long eventId = newId();
+        STUB.event(eventId, organizerId, true);
+        return eventId;
+    }
+
+    static void book(long userId, long eventId) {
+        STUB.book(userId, eventId);
+    }
+
+    private static String bearer(long userId, String role) {
+        return TestTokens.bearer(userId, role);
+    }
+}
@@ -0,0 +1,40 @@
+package com.dipartimento.reviewservice.contract;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Contratto /api/reviews sull'API servlet (ReviewController, Tomcat).
+ */
+@ActiveProfiles("test")
+class ServletReviewApiContractTests extends ReviewApiContractTests {
+
+    // Solo qui: l'API reattiva legge e scrive con DatabaseClient, non con i repository Spring Data
+    @Test
+    void timesRepositoryMethods() {
+        long userId = newId();
+        long eventId = pastEvent(newId());
+        book(userId, eventId);
+        create(userId, eventId, 3);
+
+        assertTrue(prometheus().lines().anyMatch(line -> line.startsWith("spring_data_repository_invocations_seconds_count{")
+                && line.contains("method=\"upsert\"") && line.contains("repository=\"ReviewRepository\"")));
+    }
+
+    @Test
+    void tracesRepositoryMethods() {
+        long userId = newId();
+        long eventId = pastEvent(newId());
+        book(userId, eventId);
+        create(userId, eventId, 2);
+
+        Map<String, Object> trace = trace(traceparent("/events/internal/" + eventId).split("-")[1]);
+        assertNotNull(trace);
+        assertTrue(spans(trace).stream().anyMatch(span -> "ReviewRepository.upsert".equals(span.get("name"))), trace::toString);
+    }
+}
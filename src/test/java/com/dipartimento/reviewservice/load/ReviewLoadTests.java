@@ -0,0 +1,295 @@
+package com.dipartimento.reviewservice.load;
+
+import com.dipartimento.reviewservice.ReviewServiceApplication;
+import com.dipartimento.reviewservice.model.Review;
+import com.dipartimento.reviewservice.repository.ReviewRepository;
+import com.dipartimento.reviewservice.support.DownstreamStub;
+import com.dipartimento.reviewservice.support.TestTokens;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Carico misto lettura/scrittura su /api/reviews, tutto nella stessa JVM e senza rete: il servizio gira sul
+ * profilo test (H2) e Auth, Event e Booking service sono DownstreamStub con latenza e quota di errori 503
+ * configurabili. CLIENTS client virtuali inviano richieste in ciclo chiuso, scegliendo l'endpoint secondo
+ * i pesi di load.mix, un utente e un evento a caso (ogni utente ha prenotato ogni evento).
+ *
+ * Per endpoint riporta throughput, risposte 4xx e 5xx (o errori di rete) e i percentili di latenza; gli
+ * istogrammi HDR completi finiscono in target/load/{endpoint}.hgrm (valori in ms). Non fa parte della build:
+ *
+ *   mvn test -Dtest=ReviewLoadTests -Dbenchmark=true [-Dload.clients=64 -Dload.seconds=30 -Dload.warmup=5
+ *       -Dload.latency=20 -Dload.error-rate=0.01 -Dload.remote-auth=true
+ *       -Dload.mix=event=50,me=15,summary=15,create=10,update=10]
+ *
+ * In ciclo chiuso un client fermo su una risposta lenta non invia le successive: i percentili alti
+ * sottostimano quelli che vedrebbe un carico a tasso costante. Il client HTTP del servizio non ripete
+ * le chiamate: ogni errore iniettato arriva subito al circuit breaker e alla risposta.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ReviewLoadTests {
+
+    private static final int CLIENTS = Integer.getInteger("load.clients", 64);
+    private static final Duration WARMUP = Duration.ofSeconds(Integer.getInteger("load.warmup", 5));
+    private static final Duration MEASURE = Duration.ofSeconds(Integer.getInteger("load.seconds", 30));
+    private static final Duration LATENCY = Duration.ofMillis(Integer.getInteger("load.latency", 20));
+    private static final double ERROR_RATE = Double.parseDouble(System.getProperty("load.error-rate", "0"));
+    private static final boolean REMOTE_AUTH = Boolean.parseBoolean(System.getProperty("load.remote-auth", "true"));
+    private static final String MIX = System.getProperty("load.mix", "event=50,me=15,summary=15,create=10,update=10");
+
+    private static final int USERS = 1_000;
+    private static final int EVENTS = 100;
+    private static final long FIRST_USER = 500_000L;
+    private static final long FIRST_EVENT = 600_000L;
+    private static final long ORGANIZER = 700_000L;
+    private static final Path REPORT_DIR = Path.of("target", "load");
+
+    /**
+     * Richiesta di un endpoint per un utente e un evento.
+     */
+    @FunctionalInterface
+    private interface RequestFactory {
+        HttpRequest.Builder create(String baseUrl, long userId, long eventId);
+    }
+
+    private record Endpoint(String name, int weight, RequestFactory request, Histogram latencies,
+                            AtomicLong clientErrors, AtomicLong serverErrors) {
+
+        Endpoint(String name, int weight, RequestFactory request) {
+            // Latenze in microsecondi, da 1µs a 60s con 3 cifre significative
+            this(name, weight, request, new ConcurrentHistogram(1, TimeUnit.SECONDS.toMicros(60), 3),
+                    new AtomicLong(), new AtomicLong());
+        }
+    }
+
+    private final Map<Long, String> bearers = new LinkedHashMap<>();
+
+    @Test
+    void mixedWorkload() throws Exception {
+        List<Endpoint> endpoints = endpoints(weights(MIX));
+        try (DownstreamStub stub = DownstreamStub.start()) {
+            for (int e = 0; e < EVENTS; e++) {
+                stub.event(FIRST_EVENT + e, ORGANIZER + e, true);
+                for (int u = 0; u < USERS; u++) {
+                    stub.book(FIRST_USER + u, FIRST_EVENT + e);
+                }
+            }
+            for (int u = 0; u < USERS; u++) {
+                bearers.put(FIRST_USER + u, bearer(FIRST_USER + u));
+            }
+
+            ConfigurableApplicationContext app = start(stub);
+            PrintStream out = System.out;
+            PrintStream err = System.err;
+            try {
+                seedReviews(app);
+                // Ritardo ed errori solo da qui: l'avvio del servizio non li deve subire
+                stub.setLatency(LATENCY);
+                stub.setErrorRate(ERROR_RATE);
+                String baseUrl = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+                // I System.out/err di debug del servizio non devono misurare la console
+                System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+                load(baseUrl, endpoints);
+            } finally {
+                System.setOut(out);
+                System.setErr(err);
+                app.close();
+            }
+        }
+        report(endpoints);
+    }
+
+    private static List<Endpoint> endpoints(Map<String, Integer> weights) {
+        List<Endpoint> all = List.of(
+                new Endpoint("event", weights.getOrDefault("event", 0), (base, user, event) ->
+                        HttpRequest.newBuilder(URI.create(base + "/api/reviews/event/" + event)).GET()),
+                new Endpoint("me", weights.getOrDefault("me", 0), (base, user, event) ->
+                        HttpRequest.newBuilder(URI.create(base + "/api/reviews/me")).GET()),
+                new Endpoint("summary", weights.getOrDefault("summary", 0), (base, user, event) ->
+                        HttpRequest.newBuilder(URI.create(base + "/api/reviews/event/" + event + "/summary")).GET()),
+                new Endpoint("create", weights.getOrDefault("create", 0), (base, user, event) ->
+                        HttpRequest.newBuilder(URI.create(base + "/api/reviews"))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString("{\"eventId\":" + event + ",\"rating\":"
+                                        + ThreadLocalRandom.current().nextInt(1, 6) + ",\"comment\":\"Carico\"}"))),
+                // La recensione di partenza di ogni utente è sul suo evento "di casa" (vedi seedReviews)
+                new Endpoint("update", weights.getOrDefault("update", 0), (base, user, event) ->
+                        HttpRequest.newBuilder(URI.create(base + "/api/reviews/user/" + user + "/event/" + homeEvent(user)))
+                                .header("Content-Type", "application/json")
+                                .PUT(HttpRequest.BodyPublishers.ofString("{\"rating\":"
+                                        + ThreadLocalRandom.current().nextInt(1, 6) + ",\"comment\":\"Aggiornata\"}"))));
+        List<Endpoint> active = all.stream().filter(endpoint -> endpoint.weight() > 0).toList();
+        if (active.isEmpty()) {
+            throw new IllegalArgumentException("load.mix senza endpoint con peso positivo: " + MIX);
+        }
+        return active;
+    }
+
+    private static Map<String, Integer> weights(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] kv = part.trim().split("=", 2);
+            weights.put(kv[0].trim(), Integer.parseInt(kv[1].trim()));
+        }
+        return weights;
+    }
+
+    private static ConfigurableApplicationContext start(DownstreamStub stub) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                // Database proprio: non vede né sporca quello degli altri test nella stessa JVM
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                "--server.tomcat.accept-count=" + CLIENTS,
+                "--review.invalidation.transport=none",
+                "--review.auth.remote-verification=" + REMOTE_AUTH,
+                "--review.checks.timeout=" + (LATENCY.toMillis() + 10_000) + "ms"));
+        for (String service : List.of("auth", "event", "booking")) {
+            String prefix = "--review.downstream." + service;
+            args.add(prefix + ".base-url=" + stub.url());
+            args.add(prefix + ".max-connections=" + CLIENTS * 2);
+            args.add(prefix + ".max-connections-per-route=" + CLIENTS * 2);
+            args.add(prefix + ".resilience.max-concurrent-calls=" + CLIENTS * 2);
+            args.add(prefix + ".resilience.max-wait=5s");
+            args.add(prefix + ".read-timeout=" + (LATENCY.toMillis() + 5_000) + "ms");
+        }
+        return new SpringApplicationBuilder(ReviewServiceApplication.class)
+                .profiles("test")
+                .run(args.toArray(String[]::new));
+    }
+
+    private static void seedReviews(ConfigurableApplicationContext app) {
+        List<Review> reviews = new ArrayList<>(USERS);
+        for (int u = 0; u < USERS; u++) {
+            Review review = new Review();
+            review.setUserId(FIRST_USER + u);
+            review.setEventId(homeEvent(FIRST_USER + u));
+            review.setRating((u % 5) + 1);
+            review.setComment("Iniziale");
+            reviews.add(review);
+        }
+        app.getBean(ReviewRepository.class).saveAll(reviews);
+    }
+
+    private void load(String baseUrl, List<Endpoint> endpoints) throws Exception {
+        int totalWeight = endpoints.stream().mapToInt(Endpoint::weight).sum();
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean stop = new AtomicBoolean();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder().executor(clients).version(HttpClient.Version.HTTP_1_1).build()) {
+            for (int i = 0; i < CLIENTS; i++) {
+                clients.execute(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (!stop.get()) {
+                        Endpoint endpoint = pick(endpoints, random.nextInt(totalWeight));
+                        long userId = FIRST_USER + random.nextInt(USERS);
+                        long eventId = FIRST_EVENT + random.nextInt(EVENTS);
+                        HttpRequest request = endpoint.request().create(baseUrl, userId, eventId)
+                                .header("Authorization", bearers.get(userId))
+                                .timeout(Duration.ofSeconds(60))
+                                .build();
+
+                        long start = System.nanoTime();
+                        int status;
+                        try {
+                            status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        } catch (IOException e) {
+                            status = 599;
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        if (measuring.get()) {
+                            endpoint.latencies().recordValue(Math.max(1, (System.nanoTime() - start) / 1_000));
+                            if (status >= 500) {
+                                endpoint.serverErrors().incrementAndGet();
+                            } else if (status >= 400) {
+                                endpoint.clientErrors().incrementAndGet();
+                            }
+                        }
+                    }
+                });
+            }
+
+            Thread.sleep(WARMUP.toMillis());
+            measuring.set(true);
+            Thread.sleep(MEASURE.toMillis());
+            measuring.set(false);
+            stop.set(true);
+            clients.shutdown();
+            clients.awaitTermination(60, TimeUnit.SECONDS);
+        }
+    }
+
+    private static Endpoint pick(List<Endpoint> endpoints, int ticket) {
+        for (Endpoint endpoint : endpoints) {
+            ticket -= endpoint.weight();
+            if (ticket < 0) {
+                return endpoint;
+            }
+        }
+        return endpoints.get(endpoints.size() - 1);
+    }
+
+    private static void report(List<Endpoint> endpoints) throws IOException {
+        Files.createDirectories(REPORT_DIR);
+        double seconds = MEASURE.toMillis() / 1000.0;
+        System.out.println();
+        System.out.printf("client=%d latenza a valle=%dms errori a valle=%.1f%% auth remota=%s%n",
+                CLIENTS, LATENCY.toMillis(), ERROR_RATE * 100, REMOTE_AUTH);
+        System.out.println("endpoint   richieste    req/s   p50 ms   p90 ms   p99 ms  p99.9 ms   max ms     4xx     5xx");
+        long total = 0;
+        for (Endpoint endpoint : endpoints) {
+            Histogram h = endpoint.latencies();
+            total += h.getTotalCount();
+            System.out.printf("%-9s %10d %8.0f %8.1f %8.1f %8.1f %9.1f %8.1f %7d %7d%n", endpoint.name(), h.getTotalCount(),
+                    h.getTotalCount() / seconds, ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)),
+                    ms(h.getValueAtPercentile(99)), ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()),
+                    endpoint.clientErrors().get(), endpoint.serverErrors().get());
+            try (PrintStream file = new PrintStream(Files.newOutputStream(REPORT_DIR.resolve(endpoint.name() + ".hgrm")))) {
+                h.outputPercentileDistribution(file, 1000.0);
+            }
+        }
+        System.out.printf("totale    %10d %8.0f%n", total, total / seconds);
+        System.out.println("Istogrammi HDR in " + REPORT_DIR.toAbsolutePath());
+    }
+
+    private static long homeEvent(long userId) {
+        return FIRST_EVENT + (userId - FIRST_USER) % EVENTS;
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static String bearer(long userId) {
+        return TestTokens.bearer(userId, "USER");
+    }
+}
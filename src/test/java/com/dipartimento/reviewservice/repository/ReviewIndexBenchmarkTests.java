@@ -0,0 +1,136 @@
+package com.dipartimento.reviewservice.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.io.ClassPathResource;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Confronto piani di esecuzione e latenze delle query di ReviewRepository prima e dopo la migrazione V2
+ * (indici), su H2 in modalità PostgreSQL. Non fa parte della build normale:
+ *
+ *   mvn test -Dtest=ReviewIndexBenchmarkTests -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ReviewIndexBenchmarkTests {
+
+    private static final int USERS = 20_000;
+    private static final int EVENTS = 2_000;
+    private static final int REVIEWS_PER_USER = 10;
+    private static final int ITERATIONS = 2_000;
+
+    // Percorsi di accesso usati da ReviewRepository (query SQL equivalenti a quelle generate da Hibernate)
+    private static final Map<String, String> QUERIES = new LinkedHashMap<>();
+
+    static {
+        QUERIES.put("findByEventId", "SELECT id, event_id, user_id, rating, comment FROM reviews WHERE event_id = ?");
+        QUERIES.put("findByUserId", "SELECT id, event_id, user_id, rating, comment FROM reviews WHERE user_id = ?");
+        QUERIES.put("existsByUserIdAndEventId", "SELECT id FROM reviews WHERE user_id = ? AND event_id = ? FETCH FIRST 1 ROWS ONLY");
+        QUERIES.put("findByUserIdAndEventId", "SELECT id, event_id, user_id, rating, comment FROM reviews WHERE user_id = ? AND event_id = ?");
+        QUERIES.put("countRatingsForEvent", "SELECT event_id, rating, COUNT(*) FROM reviews WHERE event_id = ? GROUP BY event_id, rating");
+    }
+
+    @Test
+    void compareQueryPlansBeforeAndAfterIndexes() throws Exception {
+        try (Connection con = DriverManager.getConnection("jdbc:h2:mem:indexbench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE", "sa", "")) {
+            runScript(con, "db/migration/common/V1__create_reviews.sql");
+            seed(con);
+
+            Map<String, Double> before = measure(con, "PRIMA degli indici");
+            runScript(con, "db/migration/common/V2__review_indexes.sql");
+            try (Statement st = con.createStatement()) {
+                st.execute("ANALYZE");
+            }
+            Map<String, Double> after = measure(con, "DOPO la migrazione V2");
+
+            System.out.println();
+            System.out.printf("%-28s %14s %14s %9s%n", "query", "prima (us)", "dopo (us)", "speedup");
+            for (String name : QUERIES.keySet()) {
+                System.out.printf("%-28s %14.1f %14.1f %8.1fx%n", name, before.get(name), after.get(name), before.get(name) / after.get(name));
+            }
+        }
+    }
+
+    private static void seed(Connection con) throws Exception {
+        con.setAutoCommit(false);
+        try (PreparedStatement ps = con.prepareStatement("INSERT INTO reviews (event_id, user_id, rating, comment) VALUES (?, ?, ?, ?)")) {
+            int n = 0;
+            for (int user = 1; user <= USERS; user++) {
+                for (int i = 0; i < REVIEWS_PER_USER; i++) {
+                    ps.setLong(1, ((long) user * 7 + i * 131L) % EVENTS + 1);
+                    ps.setLong(2, user);
+                    ps.setInt(3, (user + i) % 5 + 1);
+                    ps.setString(4, "commento " + n);
+                    ps.addBatch();
+                    if (++n % 5_000 == 0) {
+                        ps.executeBatch();
+                    }
+                }
+            }
+            ps.executeBatch();
+        }
+        con.commit();
+        con.setAutoCommit(true);
+    }
+
+    private static Map<String, Double> measure(Connection con, String label) throws Exception {
+        System.out.println();
+        System.out.println("=== " + label + " (" + USERS * REVIEWS_PER_USER + " recensioni)");
+        Map<String, Double> latencies = new LinkedHashMap<>();
+
+        for (Map.Entry<String, String> query : QUERIES.entrySet()) {
+            try (PreparedStatement explain = con.prepareStatement("EXPLAIN " + query.getValue())) {
+                bind(explain, query.getValue(), 1);
+                try (ResultSet rs = explain.executeQuery()) {
+                    rs.next();
+                    System.out.println("-- " + query.getKey() + ": " + rs.getString(1).replaceAll("\\s+", " "));
+                }
+            }
+
+            try (PreparedStatement ps = con.prepareStatement(query.getValue())) {
+                long start = System.nanoTime();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    bind(ps, query.getValue(), i);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            // consuma il risultato
+                        }
+                    }
+                }
+                latencies.put(query.getKey(), (System.nanoTime() - start) / 1_000.0 / ITERATIONS);
+            }
+        }
+        return latencies;
+    }
+
+    // Con un parametro: eventId o userId a seconda della query; con due: (userId, eventId)
+    private static void bind(PreparedStatement ps, String sql, int i) throws Exception {
+        long user = i % USERS + 1;
+        if (!sql.contains("AND")) {
+            ps.setLong(1, sql.contains("user_id = ?") ? user : i % EVENTS + 1);
+        } else {
+            ps.setLong(1, user);
+            ps.setLong(2, (user * 7) % EVENTS + 1);
+        }
+    }
+
+    private static void runScript(Connection con, String path) throws Exception {
+        String sql = new ClassPathResource(path).getContentAsString(StandardCharsets.UTF_8)
+                .replaceAll("(?m)^--.*$", "");
+        try (Statement st = con.createStatement()) {
+            for (String statement : sql.split(";")) {
+                if (!statement.isBlank()) {
+                    st.execute(statement);
+                }
+            }
+        }
+    }
+}
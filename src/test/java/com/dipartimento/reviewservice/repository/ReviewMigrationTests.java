@@ -0,0 +1,44 @@
+package com.dipartimento.reviewservice.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Migrazioni Flyway su un database H2 dedicato, con dati inseriti tra una versione e l'altra.
+ */
+class ReviewMigrationTests {
+
+    @Test
+    void dedupeKeepsTheLatestReviewAndLeavesRowsWithNullKeys() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:migrations;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+        migrate(dataSource, "1");
+        jdbc.update("INSERT INTO reviews (user_id, event_id, rating) VALUES (1, 10, 2), (1, 10, 5), (2, 10, 4)");
+        jdbc.update("INSERT INTO reviews (user_id, event_id, rating) VALUES (NULL, 10, 3), (NULL, 10, 1), (3, NULL, 4)");
+
+        migrate(dataSource, "2");
+
+        List<Integer> ratings = jdbc.queryForList(
+                "SELECT rating FROM reviews WHERE user_id = 1 AND event_id = 10", Integer.class);
+        assertEquals(List.of(5), ratings);
+        assertEquals(5, jdbc.queryForObject("SELECT COUNT(*) FROM reviews", Integer.class));
+        assertEquals(2, jdbc.queryForObject("SELECT COUNT(*) FROM reviews WHERE user_id IS NULL", Integer.class));
+    }
+
+    private static void migrate(DriverManagerDataSource dataSource, String target) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .target(target)
+                .load()
+                .migrate();
+    }
+}
@@ -0,0 +1,86 @@
+package com.dipartimento.reviewservice.repository;
+
+import com.dipartimento.reviewservice.model.Review;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Lettura delle recensioni di un evento con 10k recensioni: entità gestite (findByEventId) contro
+ * proiezioni in transazione read-only (findViewsByEventId). Misura latenza e byte allocati per lettura.
+ * Non fa parte della build normale:
+ *
+ *   mvn test -Dtest=ReviewReadBenchmarkTests -Dbenchmark=true
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// Niente transazione di test: ogni lettura usa la sua, come nel controller
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ReviewReadBenchmarkTests {
+
+    private static final long EVENT_ID = 900_000L;
+    private static final int REVIEWS = 10_000;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+
+    @Autowired
+    private ReviewRepository repository;
+
+    @AfterEach
+    void cleanUp() {
+        repository.deleteChunkByEventId(EVENT_ID, Integer.MAX_VALUE);
+    }
+
+    @Test
+    void compareEntitiesAndProjections() {
+        List<Review> reviews = new ArrayList<>(REVIEWS);
+        for (long user = 1; user <= REVIEWS; user++) {
+            Review review = new Review();
+            review.setEventId(EVENT_ID);
+            review.setUserId(user);
+            review.setRating((int) (user % 5) + 1);
+            review.setComment("commento dell'utente " + user);
+            reviews.add(review);
+        }
+        repository.upsertAll(reviews);
+
+        double[] entities = measure(() -> repository.findByEventId(EVENT_ID));
+        double[] views = measure(() -> repository.findViewsByEventId(EVENT_ID));
+
+        System.out.println();
+        System.out.printf("%-22s %12s %14s%n", "lettura (" + REVIEWS + ")", "ms/lettura", "KB allocati");
+        System.out.printf("%-22s %12.2f %14.0f%n", "entity Review", entities[0], entities[1]);
+        System.out.printf("%-22s %12.2f %14.0f%n", "proiezione ReviewView", views[0], views[1]);
+    }
+
+    // [ms per lettura, KB allocati per lettura] sul thread corrente
+    private static double[] measure(Supplier<List<?>> read) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARMUP; i++) {
+            assertEquals(REVIEWS, read.get().size());
+        }
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            read.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+        return new double[] {elapsed / 1_000_000.0 / ITERATIONS, allocated / 1024.0 / ITERATIONS};
+    }
+}
@@ -0,0 +1,58 @@
+package com.dipartimento.reviewservice.repository;
+
+import com.dipartimento.reviewservice.model.Review;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ReviewRepositoryTests {
+
+    @Autowired
+    private ReviewRepository repository;
+
+    @Test
+    void upsertInsertsThenReplacesTheSameRow() {
+        Review first = repository.upsert(review(10L, 1L, 3, "così così"));
+        Review second = repository.upsert(review(10L, 1L, 5, "rivalutato"));
+
+        assertNotNull(first.getId());
+        assertEquals(first.getId(), second.getId());
+        assertEquals(5, second.getRating());
+
+        List<Review> stored = repository.findByUserIdAndEventId(1L, 10L);
+        assertEquals(1, stored.size());
+        assertEquals("rivalutato", stored.get(0).getComment());
+    }
+
+    @Test
+    void deleteChunkByEventIdRemovesAtMostLimitRows() {
+        for (long user = 1; user <= 5; user++) {
+            repository.upsert(review(20L, user, 4, null));
+        }
+        repository.upsert(review(21L, 1L, 2, null));
+
+        assertEquals(2, repository.deleteChunkByEventId(20L, 2));
+        assertEquals(3, repository.deleteChunkByEventId(20L, 2) + repository.deleteChunkByEventId(20L, 2));
+        assertEquals(0, repository.deleteChunkByEventId(20L, 2));
+        assertEquals(0, repository.countByEventId(20L));
+        assertEquals(1, repository.countByEventId(21L));
+    }
+
+    private static Review review(Long eventId, Long userId, int rating, String comment) {
+        Review review = new Review();
+        review.setEventId(eventId);
+        review.setUserId(userId);
+        review.setRating(rating);
+        review.setComment(comment);
+        return review;
+    }
+}
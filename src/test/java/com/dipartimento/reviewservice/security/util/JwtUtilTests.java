@@ -0,0 +1,63 @@
+package com.dipartimento.reviewservice.security.util;
+
+import com.dipartimento.reviewservice.security.AuthenticatedUser;
+import com.dipartimento.reviewservice.support.TestTokens;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTests {
+
+    @BeforeEach
+    void resetCache() {
+        JwtUtil.configureCache(100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void extractsUserFromSingleParse() {
+        String token = token(42, "ORGANIZER", new Date(System.currentTimeMillis() + 60_000));
+
+        AuthenticatedUser user = JwtUtil.extractAuthenticatedUser(token);
+
+        assertNotNull(user);
+        assertEquals(42L, user.getUserId());
+        assertEquals("mario", user.getUsername());
+        assertTrue(user.hasRole("organizer"));
+        assertEquals(1, JwtUtil.getClaimsCache().size());
+        assertSame(JwtUtil.parseClaims(token), JwtUtil.parseClaims(token));
+    }
+
+    @Test
+    void invalidTokensAreNotCached() {
+        assertFalse(JwtUtil.validateToken("not-a-jwt"));
+        assertNull(JwtUtil.extractAuthenticatedUser("not-a-jwt"));
+        assertEquals(0, JwtUtil.getClaimsCache().size());
+    }
+
+    @Test
+    void cacheEntryNeverOutlivesTokenExpiry() {
+        Instant now = Instant.parse("2026-01-01T10:00:00Z");
+        Claims claims = Jwts.claims().setSubject("mario").setExpiration(Date.from(now.plusSeconds(30)));
+
+        ClaimsCache early = new ClaimsCache(10, Duration.ofMinutes(5), Clock.fixed(now, ZoneOffset.UTC));
+        early.put("t", claims);
+        assertSame(claims, early.get("t"));
+
+        ClaimsCache late = new ClaimsCache(10, Duration.ofMinutes(5), Clock.fixed(now.plusSeconds(31), ZoneOffset.UTC));
+        late.put("t", claims);
+        assertNull(late.get("t"));
+    }
+
+    private static String token(long userId, String role, Date expiration) {
+        return TestTokens.token("mario", userId, role, expiration);
+    }
+}
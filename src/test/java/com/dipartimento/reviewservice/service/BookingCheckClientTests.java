@@ -0,0 +1,175 @@
+package com.dipartimento.reviewservice.service;
+
+import com.dipartimento.reviewservice.dto.BookingPair;
+import com.dipartimento.reviewservice.service.resilience.Bulkhead;
+import com.dipartimento.reviewservice.service.resilience.CircuitBreaker;
+import com.dipartimento.reviewservice.service.resilience.DownstreamGuard;
+import com.dipartimento.reviewservice.service.resilience.DownstreamUnavailableException;
+import com.dipartimento.reviewservice.service.resilience.FallbackPolicy;
+import com.dipartimento.reviewservice.support.DownstreamStub;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingCheckClientTests {
+
+    private DownstreamStub stub;
+    private BookingCheckClient client;
+
+    @BeforeEach
+    void setUp() {
+        stub = DownstreamStub.start();
+        client = client(Duration.ofMillis(50), 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+        stub.close();
+    }
+
+    @Test
+    void checkWithNoCallInFlightIsSentImmediately() throws Exception {
+        client.shutdown();
+        client = client(Duration.ofMinutes(1), 100);
+        stub.book(1, 10);
+
+        // Inviata sul thread del chiamante: al ritorno l'esito è già noto
+        CompletableFuture<Boolean> check = client.check(1L, 10L, "token");
+        assertTrue(check.isDone());
+        assertTrue(check.get());
+        assertEquals(List.of(1), stub.batchSizes());
+    }
+
+    @Test
+    void checksWhileACallIsInFlightShareOneBatch() throws Exception {
+        stub.book(1, 10);
+        stub.book(2, 10);
+        stub.setLatency(Duration.ofMillis(200));
+
+        List<CompletableFuture<Boolean>> checks = new ArrayList<>();
+        checks.add(inFlight(1L, 10L, "token"));
+        checks.add(client.check(2L, 10L, "token"));
+        checks.add(client.check(3L, 10L, "token"));
+        checks.add(client.check(2L, 10L, "token"));
+
+        assertEquals(List.of(true, true, false, true), join(checks));
+        assertEquals(List.of(1, 2), stub.batchSizes().stream().sorted().toList());
+        assertEquals(0, stub.singleChecks());
+        assertEquals(1L, client.stats().get("coalesced"));
+    }
+
+    @Test
+    void differentTokensGoInSeparateBatches() throws Exception {
+        stub.book(1, 10);
+        stub.setLatency(Duration.ofMillis(200));
+
+        CompletableFuture<Boolean> first = inFlight(1L, 10L, "primo");
+        CompletableFuture<Boolean> second = client.check(1L, 10L, "secondo");
+
+        assertTrue(first.get());
+        assertTrue(second.get());
+        assertEquals(List.of(1, 1), stub.batchSizes());
+        assertTrue(stub.batchTokens().containsAll(List.of("Bearer primo", "Bearer secondo")));
+    }
+
+    @Test
+    void fullBatchIsSentWithoutWaitingForTheWindow() throws Exception {
+        client.shutdown();
+        client = client(Duration.ofMinutes(1), 2);
+        stub.book(1, 10);
+        stub.setLatency(Duration.ofMillis(200));
+
+        // La prima parte subito; la seconda e la terza riempiono un batch, che non aspetta il minuto della finestra
+        CompletableFuture<Boolean> first = inFlight(9L, 10L, "token");
+        CompletableFuture<Boolean> second = client.check(1L, 10L, "token");
+        assertEquals(List.of(false, true, false), join(List.of(first, second, client.check(2L, 10L, "token"))));
+        // Le due chiamate sono in corso insieme: l'ordine di arrivo allo stub non è fisso
+        assertEquals(List.of(1, 2), stub.batchSizes().stream().sorted().toList());
+    }
+
+    @Test
+    void fallsBackToSingleChecksWithoutBatchEndpoint() throws Exception {
+        stub.setBatchSupported(false);
+        stub.book(1, 10);
+
+        assertEquals(List.of(true, false), join(List.of(client.check(1L, 10L, "token"), client.check(2L, 10L, "token"))));
+        assertEquals(2, stub.singleChecks());
+
+        // Le verifiche successive non riprovano l'endpoint batch
+        assertTrue(client.check(1L, 10L, "token").get());
+        assertEquals(3, stub.singleChecks());
+        assertEquals(false, client.stats().get("batching"));
+    }
+
+    @Test
+    void batchClosedByTheWindowIsRejectedWhenAllSendersAreBusy() throws Exception {
+        client.shutdown();
+        client = new BookingCheckClient(new RestTemplate(), guard(), stub.url(), true, Duration.ofMillis(20), 100, 1, false);
+        stub.setLatency(Duration.ofMillis(400));
+
+        CompletableFuture<Boolean> first = inFlight(1L, 10L, "token");
+        // Chiuso dalla finestra: occupa l'unico thread di invio
+        CompletableFuture<Boolean> second = client.check(2L, 10L, "token");
+        Thread.sleep(150);
+        // Nessun thread di invio libero: il batch viene rifiutato subito, non accodato
+        CompletableFuture<Boolean> third = client.check(3L, 10L, "token");
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> third.get(200, TimeUnit.MILLISECONDS));
+        assertInstanceOf(DownstreamUnavailableException.class, failure.getCause());
+        assertEquals(1L, client.stats().get("rejected"));
+        assertEquals(List.of(false, false), join(List.of(first, second)));
+        assertEquals(List.of(1, 1), stub.batchSizes());
+    }
+
+    @Test
+    void checkAllSplitsIntoBatchesOfMaxSize() {
+        client.shutdown();
+        client = client(Duration.ofMillis(5), 100);
+        List<BookingPair> pairs = LongStream.rangeClosed(1, 250).mapToObj(user -> new BookingPair(user, 10L)).toList();
+        stub.book(7, 10);
+
+        Map<BookingPair, Boolean> results = client.checkAll(pairs, "token");
+
+        assertEquals(250, results.size());
+        assertTrue(results.get(new BookingPair(7L, 10L)));
+        assertFalse(results.get(new BookingPair(8L, 10L)));
+        assertEquals(List.of(100, 100, 50), stub.batchSizes());
+    }
+
+    private BookingCheckClient client(Duration window, int maxBatchSize) {
+        return new BookingCheckClient(new RestTemplate(), guard(), stub.url(), true, window, maxBatchSize, 2, false);
+    }
+
+    private static DownstreamGuard guard() {
+        return new DownstreamGuard("booking", new CircuitBreaker(10, 10, 50, 1000, 1),
+                new Bulkhead(10, 0), FallbackPolicy.FAIL_CLOSED);
+    }
+
+    // Verifica inviata subito da un altro thread; al ritorno la sua chiamata è in corso (lo stub ha latenza)
+    private CompletableFuture<Boolean> inFlight(Long userId, Long eventId, String token) throws InterruptedException {
+        CompletableFuture<Boolean> check = CompletableFuture.supplyAsync(() -> client.check(userId, eventId, token).join());
+        Thread.sleep(50);
+        return check;
+    }
+
+    private static List<Boolean> join(List<CompletableFuture<Boolean>> checks) throws Exception {
+        List<Boolean> results = new ArrayList<>();
+        for (CompletableFuture<Boolean> check : checks) {
+            results.add(check.get());
+        }
+        return results;
+    }
+}
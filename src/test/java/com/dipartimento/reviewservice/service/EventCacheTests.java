@@ -0,0 +1,108 @@
+package com.dipartimento.reviewservice.service;
+
+import com.dipartimento.reviewservice.dto.EventDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventCacheTests {
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        EventCache cache = new EventCache();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        EventCache.Loader slowLoader = id -> {
+            calls.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            EventDTO event = new EventDTO();
+            event.setOrganizerId(7L);
+            return event;
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<EventDTO>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.get(1L, slowLoader)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<EventDTO> result : results) {
+                assertEquals(7L, result.get(5, TimeUnit.SECONDS).getOrganizerId());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, calls.get());
+        assertNotNull(cache.get(1L, id -> fail("servito dalla cache")));
+    }
+
+    @Test
+    void negativeLookupsAreCachedButErrorsAreNot() {
+        EventCache cache = new EventCache();
+        AtomicInteger calls = new AtomicInteger();
+
+        assertNull(cache.get(2L, id -> { calls.incrementAndGet(); return null; }));
+        assertNull(cache.get(2L, id -> { calls.incrementAndGet(); return null; }));
+        assertEquals(1, calls.get());
+
+        assertThrows(IllegalStateException.class, () -> cache.get(3L, id -> { throw new IllegalStateException("down"); }));
+        assertFalse(cache.containsStale(3L));
+        assertEquals(1L, cache.stats().get("loadFailures"));
+    }
+
+    @Test
+    void loadInterruptedByAnInvalidationIsNotStored() throws Exception {
+        EventCache cache = new EventCache();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<EventDTO> stale = pool.submit(() -> cache.get(1L, id -> {
+                loading.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return event(7L);
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            // L'evento cambia mentre la lettura è in corso: chi arriva dopo non aspetta quella lettura
+            cache.invalidate(1L);
+            assertEquals(8L, cache.get(1L, id -> event(8L)).getOrganizerId());
+
+            release.countDown();
+            assertEquals(7L, stale.get(5, TimeUnit.SECONDS).getOrganizerId());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Il valore letto prima dell'invalidazione non ha sovrascritto quello nuovo
+        assertEquals(8L, cache.get(1L, id -> fail("servito dalla cache")).getOrganizerId());
+    }
+
+    private static EventDTO event(long organizerId) {
+        EventDTO event = new EventDTO();
+        event.setOrganizerId(organizerId);
+        return event;
+    }
+}
@@ -0,0 +1,71 @@
+package com.dipartimento.reviewservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventReviewsCacheTests {
+
+    @Test
+    void hitsUntilTheVersionChangesOrTheEventIsInvalidated() {
+        EventReviewsCache cache = new EventReviewsCache(DataSize.ofKilobytes(64), DataSize.ofKilobytes(16));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, "v1", () -> json(100, loads));
+        cache.get(1L, "v1", () -> json(100, loads));
+        assertEquals(1, loads.get());
+
+        cache.get(1L, "v2", () -> json(100, loads));
+        assertEquals(2, loads.get());
+
+        cache.onReviewChanged(new ReviewChangedEvent(1L, 5L));
+        cache.get(1L, "v2", () -> json(100, loads));
+        assertEquals(3, loads.get());
+        assertEquals(1L, cache.stats().get("invalidations"));
+    }
+
+    @Test
+    void userListingsAreSeparateFromEventListings() {
+        EventReviewsCache cache = new EventReviewsCache(DataSize.ofKilobytes(64), DataSize.ofKilobytes(16));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, "v1", () -> json(100, loads));
+        cache.getForUser(1L, "v1", () -> json(200, loads));
+        assertEquals(2, loads.get());
+        assertEquals(200, cache.getIfPresentForUser(1L, "v1").json().length);
+
+        // Una scrittura dell'utente 1 su un altro evento invalida il suo elenco, non quello dell'evento 1
+        cache.onReviewChanged(new ReviewChangedEvent(2L, 1L));
+        assertNull(cache.getIfPresentForUser(1L, "v1"));
+        assertNotNull(cache.getIfPresent(1L, "v1"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenOverTheByteBudget() {
+        EventReviewsCache cache = new EventReviewsCache(DataSize.ofKilobytes(3), DataSize.ofKilobytes(2));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, "v", () -> json(1000, loads));
+        cache.get(2L, "v", () -> json(1000, loads));
+        cache.get(1L, "v", () -> json(1000, loads));   // 1 diventa la più recente
+        cache.get(3L, "v", () -> json(1000, loads));   // fuori budget: esce la 2
+        assertEquals(3, loads.get());
+
+        cache.get(1L, "v", () -> json(1000, loads));
+        assertEquals(3, loads.get());
+        cache.get(2L, "v", () -> json(1000, loads));
+        assertEquals(4, loads.get());
+
+        cache.get(9L, "v", () -> json(4000, loads));   // oltre max-entry-bytes: non va in cache
+        assertEquals(1L, cache.stats().get("rejectedTooLarge"));
+        assertTrue((Long) cache.stats().get("evictions") >= 1);
+    }
+
+    private static byte[] json(int size, AtomicInteger loads) {
+        loads.incrementAndGet();
+        return new byte[size];
+    }
+}
@@ -0,0 +1,66 @@
+package com.dipartimento.reviewservice.service;
+
+import com.dipartimento.reviewservice.reactive.ReactivePreconditions;
+import com.dipartimento.reviewservice.service.PreconditionRunner.Check;
+import com.dipartimento.reviewservice.service.PreconditionRunner.Denial;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreconditionRunnerTests {
+
+    private final PreconditionRunner runner = new PreconditionRunner(4, 10, Duration.ofSeconds(2), false);
+
+    @AfterEach
+    void shutdown() {
+        runner.shutdown();
+    }
+
+    @Test
+    void reportsDenialsInListOrder() {
+        // Il primo controllo fallisce dopo il secondo: la risposta resta la sua, come in sequenza
+        Denial denial = runner.firstDenial(List.of(
+                new Check(() -> sleepThen(200, false), HttpStatus.NOT_FOUND, "Evento non trovato"),
+                new Check(() -> false, HttpStatus.FORBIDDEN, "Non hai prenotato")));
+
+        assertEquals(new Denial(HttpStatus.NOT_FOUND, "Evento non trovato"), denial);
+    }
+
+    @Test
+    void laterDenialWinsOnceEarlierChecksPass() {
+        Denial denial = runner.firstDenial(List.of(
+                new Check(() -> sleepThen(100, true), HttpStatus.NOT_FOUND, "Evento non trovato"),
+                new Check(() -> false, HttpStatus.FORBIDDEN, "Non hai prenotato")));
+
+        assertEquals(new Denial(HttpStatus.FORBIDDEN, "Non hai prenotato"), denial);
+        assertNull(runner.firstDenial(List.of(new Check(() -> true, HttpStatus.FORBIDDEN, "no"))));
+    }
+
+    @Test
+    void reactiveChecksReportDenialsInListOrder() {
+        ReactivePreconditions preconditions = new ReactivePreconditions(Duration.ofSeconds(2));
+
+        Denial denial = preconditions.firstDenial(List.of(
+                new ReactivePreconditions.Check(Mono.just(false).delayElement(Duration.ofMillis(200)),
+                        HttpStatus.NOT_FOUND, "Evento non trovato"),
+                new ReactivePreconditions.Check(Mono.just(false), HttpStatus.FORBIDDEN, "Non hai prenotato")))
+                .block();
+
+        assertEquals(new Denial(HttpStatus.NOT_FOUND, "Evento non trovato"), denial);
+    }
+
+    private static Boolean sleepThen(long millis, boolean passed) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return passed;
+    }
+}
@@ -0,0 +1,72 @@
+package com.dipartimento.reviewservice.service;
+
+import com.dipartimento.reviewservice.repository.RatingCount;
+import com.dipartimento.reviewservice.repository.ReviewRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RatingSummaryServiceTests {
+
+    private final ReviewRepository repository = mock(ReviewRepository.class);
+    private final RatingSummaryService service = new RatingSummaryService(repository);
+
+    @Test
+    void rebuildDoesNotBringBackAnEventDeletedMeanwhile() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // La query completa legge ancora la recensione dell'evento 1...
+        when(repository.countRatingsByEvent()).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(count(1L, 4, 1L));
+        });
+        // ...che nel frattempo viene cancellata: l'aggiornamento per evento la legge dopo
+        when(repository.countRatingsForEvent(1L)).thenReturn(List.of());
+
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(service::rebuild);
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        service.onReviewChanged(new ReviewChangedEvent(1L, 7L));
+        release.countDown();
+        rebuild.get(5, TimeUnit.SECONDS);
+
+        assertEquals(0, service.getSummary(1L).getCount());
+    }
+
+    @Test
+    void olderRefreshDoesNotOverwriteANewerOne() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.countRatingsForEvent(1L))
+                .thenAnswer(invocation -> {
+                    loading.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return List.of(count(1L, 5, 1L));
+                })
+                .thenReturn(List.of(count(1L, 5, 1L), count(1L, 3, 1L)));
+        service.rebuild();
+
+        CompletableFuture<Void> older = CompletableFuture.runAsync(() -> service.onReviewChanged(new ReviewChangedEvent(1L, 7L)));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        service.onReviewChanged(new ReviewChangedEvent(1L, 8L));
+        release.countDown();
+        older.get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, service.getSummary(1L).getCount());
+        assertEquals(4.0, service.getSummary(1L).getAverage());
+    }
+
+    private static RatingCount count(Long eventId, int rating, long total) {
+        RatingCount count = mock(RatingCount.class);
+        when(count.getEventId()).thenReturn(eventId);
+        when(count.getRating()).thenReturn(rating);
+        when(count.getTotal()).thenReturn(total);
+        return count;
+    }
+}
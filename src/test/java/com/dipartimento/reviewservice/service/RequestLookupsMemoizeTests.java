@@ -0,0 +1,114 @@
+package com.dipartimento.reviewservice.service;
+
+import com.dipartimento.reviewservice.dto.EventDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestLookupsMemoizeTests {
+
+    @Test
+    void concurrentCallersOfTheSameKeyShareOneLookup() throws Exception {
+        RequestLookups lookups = new RequestLookups();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EventDTO event = new EventDTO();
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<EventDTO>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> lookups.event(1L, () -> {
+                    calls.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return event;
+                })));
+            }
+            // La prima ricerca è in corso: le altre la aspettano invece di partire
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Thread.sleep(50);
+            release.countDown();
+
+            for (Future<EventDTO> result : results) {
+                assertSame(event, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void failuresAreNotRemembered() {
+        RequestLookups lookups = new RequestLookups();
+        AtomicInteger calls = new AtomicInteger();
+        EventDTO event = new EventDTO();
+
+        assertThrows(IllegalStateException.class, () -> lookups.event(1L, () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("Event service non raggiungibile");
+        }));
+        assertSame(event, lookups.event(1L, () -> {
+            calls.incrementAndGet();
+            return event;
+        }));
+        // Il successo invece resta: la terza chiamata non esegue la ricerca
+        assertSame(event, lookups.event(1L, () -> {
+            calls.incrementAndGet();
+            return null;
+        }));
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void parallelTasksShareTheLookupsOfTheRequest() throws Exception {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        ExecutorService checks = Executors.newFixedThreadPool(8);
+        try {
+            RequestContextTaskDecorator decorator = new RequestContextTaskDecorator();
+            Set<RequestLookups> seen = ConcurrentHashMap.newKeySet();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                tasks.add(checks.submit(decorator.decorate(() -> {
+                    await(start);
+                    seen.add(RequestLookups.current());
+                })));
+            }
+            // Tutti i task chiedono le lookups insieme: le trovano già create dal decorator
+            start.countDown();
+            for (Future<?> task : tasks) {
+                task.get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(Set.of(RequestLookups.current()), seen);
+        } finally {
+            checks.shutdownNow();
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.dipartimento.reviewservice.service;
+
+import com.dipartimento.reviewservice.controller.DownstreamCallsAdvice;
+import com.dipartimento.reviewservice.support.DownstreamStub;
+import com.dipartimento.reviewservice.support.TestTokens;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Con la verifica remota del token ogni risorsa a valle (utente, evento, prenotazione) va chiesta
+ * una sola volta per richiesta, anche dai controlli paralleli.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"review.auth.remote-verification=true", "review.request-lookups.expose-header=true"})
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+class RequestLookupsTests {
+
+    private static final DownstreamStub STUB = DownstreamStub.start();
+
+    @Autowired
+    private WebTestClient client;
+
+    @DynamicPropertySource
+    static void downstreamStub(DynamicPropertyRegistry registry) {
+        registry.add("review.downstream.auth.base-url", STUB::url);
+        registry.add("review.downstream.event.base-url", STUB::url);
+        registry.add("review.downstream.booking.base-url", STUB::url);
+    }
+
+    @BeforeEach
+    void resetCounters() {
+        STUB.resetCounters();
+    }
+
+    @Test
+    void createReviewAsksEachResourceOnce() {
+        STUB.event(801, 2, true);
+        STUB.book(1, 801);
+
+        client.post().uri("/api/reviews")
+                .header(HttpHeaders.AUTHORIZATION, TestTokens.bearer(1, "USER"))
+                .bodyValue(Map.of("eventId", 801, "rating", 4))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().valueEquals(DownstreamCallsAdvice.HEADER, "3");
+
+        assertEquals(1, STUB.authCalls());
+        assertEquals(1, STUB.eventCalls());
+        assertEquals(1, STUB.batchSizes().size() + STUB.singleChecks());
+    }
+
+    @Test
+    void eventReviewsResolveTheUserOnce() {
+        STUB.event(802, 2, true);
+        STUB.book(3, 802);
+        // Evento già in EventCache: il controllo organizer risponde subito (no) e si aspetta sempre la
+        // prenotazione, così il numero di chiamate non dipende da quale controllo parallelo finisce prima
+        getEventReviews(802, 3);
+        STUB.resetCounters();
+
+        getEventReviews(802, 3)
+                .expectHeader().valueEquals(DownstreamCallsAdvice.HEADER, "2");
+
+        assertEquals(1, STUB.authCalls());
+        assertEquals(0, STUB.eventCalls());
+        assertEquals(1, STUB.batchSizes().size() + STUB.singleChecks());
+    }
+
+    private WebTestClient.ResponseSpec getEventReviews(long eventId, long userId) {
+        return client.get().uri("/api/reviews/event/{eventId}", eventId)
+                .header(HttpHeaders.AUTHORIZATION, TestTokens.bearer(userId, "USER"))
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void eligibilityCountsTheBatchCallsActuallySent() {
+        STUB.book(4, 803);
+
+        // Tre coppie in un'unica POST batch: una chiamata al Booking service, non tre
+        client.post().uri("/api/reviews/eligibility")
+                .header(HttpHeaders.AUTHORIZATION, TestTokens.bearer(4, "USER"))
+                .bodyValue(List.of(Map.of("userId", 4, "eventId", 803), Map.of("userId", 4, "eventId", 804),
+                        Map.of("userId", 4, "eventId", 805)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(DownstreamCallsAdvice.HEADER, "2");
+
+        assertEquals(1, STUB.authCalls());
+        assertEquals(List.of(3), STUB.batchSizes());
+    }
+}
@@ -0,0 +1,114 @@
+package com.dipartimento.reviewservice.service;
+
+import com.dipartimento.reviewservice.repository.ReviewRepository;
+import com.dipartimento.reviewservice.support.DownstreamStub;
+import com.dipartimento.reviewservice.support.TestTokens;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * POST /api/reviews in modalità write-behind: 202 con trackingId, stato dell'invio e 503 con coda piena.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "review.write-behind.enabled=true",
+        "review.write-behind.queue-capacity=1",
+        "review.write-behind.batch-size=1",
+        "review.write-behind.max-latency=0ms"})
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+class ReviewWriteBehindApiTests {
+
+    private static final DownstreamStub STUB = DownstreamStub.start();
+
+    @Autowired
+    private WebTestClient client;
+
+    @MockitoSpyBean
+    private ReviewRepository repository;
+
+    @DynamicPropertySource
+    static void downstreamStub(DynamicPropertyRegistry registry) {
+        registry.add("review.downstream.auth.base-url", STUB::url);
+        registry.add("review.downstream.event.base-url", STUB::url);
+        registry.add("review.downstream.booking.base-url", STUB::url);
+    }
+
+    @Test
+    void queuesReviewsAndAppliesBackpressure() throws Exception {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            flushing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(repository).upsertAll(anyList());
+
+        STUB.event(951, 2, true);
+        for (long user = 61; user <= 63; user++) {
+            STUB.book(user, 951);
+        }
+
+        // La prima blocca il flusher nella scrittura, la seconda riempie la coda, la terza trova la coda piena
+        String first = submit(61);
+        assertTrue(flushing.await(10, TimeUnit.SECONDS));
+        String second = submit(62);
+        client.post().uri("/api/reviews")
+                .header(HttpHeaders.AUTHORIZATION, TestTokens.bearer(63, "USER"))
+                .bodyValue(Map.of("eventId", 951, "rating", 3))
+                .exchange()
+                .expectStatus().isEqualTo(503)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1");
+
+        client.get().uri("/api/reviews/submissions/" + second)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.status").isEqualTo("QUEUED");
+
+        release.countDown();
+        awaitStored(first);
+        awaitStored(second);
+        assertEquals(1, repository.findByUserIdAndEventId(62L, 951L).size());
+    }
+
+    private String submit(long userId) {
+        return (String) client.post().uri("/api/reviews")
+                .header(HttpHeaders.AUTHORIZATION, TestTokens.bearer(userId, "USER"))
+                .bodyValue(Map.of("eventId", 951, "rating", 4))
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectBody(Map.class)
+                .returnResult().getResponseBody().get("trackingId");
+    }
+
+    private void awaitStored(String trackingId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        String status = null;
+        while (System.nanoTime() < deadline) {
+            status = (String) client.get().uri("/api/reviews/submissions/" + trackingId)
+                    .exchange()
+                    .expectBody(Map.class)
+                    .returnResult().getResponseBody().get("status");
+            if ("STORED".equals(status)) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        assertEquals("STORED", status);
+    }
+}
@@ -0,0 +1,197 @@
+package com.dipartimento.reviewservice.service;
+
+import com.dipartimento.reviewservice.model.Review;
+import com.dipartimento.reviewservice.repository.ReviewRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class ReviewWriteBehindTests {
+
+    private final ReviewRepository repository = mock(ReviewRepository.class);
+    private ReviewWriteBehind writeBehind;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        writeBehind.stop();
+    }
+
+    @Test
+    void flushesBatchesAndTracksStatus() throws Exception {
+        writeBehind = start(100, 3, Duration.ofMillis(20));
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ids.add(writeBehind.submit(review(i, 1)));
+        }
+
+        for (String id : ids) {
+            awaitStatus(id, ReviewWriteBehind.Status.STORED);
+        }
+        verify(repository, atLeast(3)).upsertAll(anyList());
+        verify(repository, never()).upsertAll(argThat(batch -> batch.size() > 3));
+        assertEquals(7L, writeBehind.stats().get("stored"));
+    }
+
+    @Test
+    void fallsBackToSingleWritesAndMarksFailures() throws Exception {
+        doThrow(new IllegalStateException("batch fallito")).when(repository).upsertAll(anyList());
+        when(repository.upsert(any())).thenAnswer(invocation -> {
+            Review review = invocation.getArgument(0);
+            if (review.getUserId() == 2L) {
+                throw new IllegalStateException("vincolo violato");
+            }
+            return review;
+        });
+        writeBehind = start(100, 10, Duration.ofMillis(50));
+
+        String ok = writeBehind.submit(review(1, 1));
+        String ko = writeBehind.submit(review(2, 1));
+
+        awaitStatus(ok, ReviewWriteBehind.Status.STORED);
+        awaitStatus(ko, ReviewWriteBehind.Status.FAILED);
+        assertEquals(1L, writeBehind.stats().get("failed"));
+    }
+
+    @Test
+    void rejectsWhenTheQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch flushing = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            flushing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(repository).upsertAll(anyList());
+        writeBehind = start(1, 1, Duration.ZERO);
+
+        String first = writeBehind.submit(review(1, 1));
+        assertTrue(flushing.await(5, TimeUnit.SECONDS));
+        String second = writeBehind.submit(review(2, 1));
+        String third = writeBehind.submit(review(3, 1));
+
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(third);
+        assertEquals(1L, writeBehind.stats().get("rejected"));
+
+        release.countDown();
+        awaitStatus(second, ReviewWriteBehind.Status.STORED);
+    }
+
+    @Test
+    void stopWritesEverythingAccepted() throws Exception {
+        // max-latency lunga: senza lo svuotamento allo stop le recensioni resterebbero in coda
+        writeBehind = start(10_000, 1_000, Duration.ofSeconds(30));
+
+        ExecutorService submitters = Executors.newFixedThreadPool(4);
+        List<Future<List<String>>> results = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int user = t * 1_000;
+            results.add(submitters.submit(() -> {
+                List<String> ids = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    ids.add(writeBehind.submit(review(user + i, 1)));
+                }
+                return ids;
+            }));
+        }
+        Thread.sleep(5);
+        writeBehind.stop();
+        submitters.shutdown();
+
+        for (Future<List<String>> result : results) {
+            for (String id : result.get(5, TimeUnit.SECONDS)) {
+                // Rifiutata (dopo lo stop) oppure scritta: mai rimasta in coda
+                if (id != null) {
+                    assertEquals(ReviewWriteBehind.Status.STORED, writeBehind.getStatus(id));
+                }
+            }
+        }
+        assertNull(writeBehind.submit(review(9_999, 1)));
+    }
+
+    @Test
+    void stopDuringAFlushDoesNotFailTheBatch() throws Exception {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Come il driver JDBC/Hikari: un thread interrotto non ottiene la connessione e resta interrotto
+        doAnswer(invocation -> {
+            flushing.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("connessione non ottenuta: thread interrotto");
+            }
+            return null;
+        }).when(repository).upsertAll(anyList());
+        when(repository.upsert(any())).thenAnswer(invocation -> {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("connessione non ottenuta: thread interrotto");
+            }
+            return invocation.getArgument(0);
+        });
+        writeBehind = start(100, 10, Duration.ZERO);
+
+        String id = writeBehind.submit(review(1, 1));
+        assertTrue(flushing.await(5, TimeUnit.SECONDS));
+        Thread stopping = new Thread(() -> {
+            try {
+                writeBehind.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        stopping.start();
+        Thread.sleep(100);
+        release.countDown();
+        stopping.join(5_000);
+
+        assertEquals(ReviewWriteBehind.Status.STORED, writeBehind.getStatus(id));
+        assertEquals(0L, writeBehind.stats().get("failed"));
+    }
+
+    private ReviewWriteBehind start(int capacity, int batchSize, Duration maxLatency) {
+        ReviewWriteBehind writeBehind = new ReviewWriteBehind(repository, mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(writeBehind, "enabled", true);
+        ReflectionTestUtils.setField(writeBehind, "queueCapacity", capacity);
+        ReflectionTestUtils.setField(writeBehind, "batchSize", batchSize);
+        ReflectionTestUtils.setField(writeBehind, "maxLatency", maxLatency);
+        ReflectionTestUtils.setField(writeBehind, "offerTimeout", Duration.ofMillis(20));
+        ReflectionTestUtils.setField(writeBehind, "statusRetention", 100_000);
+        writeBehind.start();
+        return writeBehind;
+    }
+
+    private void awaitStatus(String trackingId, ReviewWriteBehind.Status expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writeBehind.getStatus(trackingId) != expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, writeBehind.getStatus(trackingId));
+    }
+
+    private static Review review(long userId, long eventId) {
+        Review review = new Review();
+        review.setUserId(userId);
+        review.setEventId(eventId);
+        review.setRating(4);
+        return review;
+    }
+}
@@ -0,0 +1,48 @@
+package com.dipartimento.reviewservice.service.invalidation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryInvalidationBusTests {
+
+    @Test
+    void deliversToOtherNodesButNotBackToTheSender() {
+        InMemoryInvalidationBus nodeA = new InMemoryInvalidationBus();
+        InMemoryInvalidationBus nodeB = new InMemoryInvalidationBus();
+        try {
+            List<Invalidation> receivedByA = new ArrayList<>();
+            List<Invalidation> receivedByB = new ArrayList<>();
+            nodeA.subscribe(receivedByA::add);
+            nodeB.subscribe(receivedByB::add);
+
+            nodeA.publish(Invalidation.review(5L, 9L));
+            nodeB.publish(Invalidation.event(3L));
+
+            assertEquals(List.of(Invalidation.review(5L, 9L)), receivedByB);
+            assertEquals(List.of(Invalidation.event(3L)), receivedByA);
+        } finally {
+            nodeA.close();
+            nodeB.close();
+        }
+    }
+
+    @Test
+    void reconnectAsksListenersToDropEverything() {
+        InMemoryInvalidationBus node = new InMemoryInvalidationBus();
+        try {
+            List<Invalidation> received = new ArrayList<>();
+            node.subscribe(received::add);
+
+            // Quello che fa un trasporto dopo una disconnessione
+            node.missedMessages();
+
+            assertEquals(List.of(Invalidation.ALL), received);
+        } finally {
+            node.close();
+        }
+    }
+}
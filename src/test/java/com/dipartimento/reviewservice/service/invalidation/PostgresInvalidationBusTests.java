@@ -0,0 +1,113 @@
+package com.dipartimento.reviewservice.service.invalidation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * LISTEN/NOTIFY senza un PostgreSQL vero: le connessioni del LISTEN sono mock che restituiscono le notifiche.
+ */
+class PostgresInvalidationBusTests {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final BlockingQueue<Connection> connections = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Invalidation> received = new LinkedBlockingQueue<>();
+    private PostgresInvalidationBus bus;
+
+    @BeforeEach
+    void createBus() {
+        bus = new PostgresInvalidationBus(mock(DataSourceProperties.class), jdbcTemplate) {
+            @Override
+            Connection connect() throws SQLException {
+                Connection next = connections.poll();
+                if (next == null) {
+                    throw new SQLException("database non raggiungibile");
+                }
+                return next;
+            }
+        };
+        ReflectionTestUtils.setField(bus, "pollTimeout", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(bus, "reconnectDelay", Duration.ofMillis(10));
+        bus.subscribe(received::add);
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        bus.stop();
+    }
+
+    @Test
+    void publishesWithPgNotifyOnTheChannel() throws Exception {
+        connections.add(connection(List.of()));
+        bus.start();
+
+        bus.publish(Invalidation.event(3L));
+
+        verify(jdbcTemplate, timeout(2_000)).query(eq("SELECT pg_notify(?, ?)"), ArgumentMatchers.<ResultSetExtractor<Object>>any(),
+                eq(PostgresInvalidationBus.CHANNEL), eq(Invalidation.event(3L).encode(bus.nodeId)));
+    }
+
+    @Test
+    void deliversNotificationsFromOtherNodesOnly() throws Exception {
+        connections.add(connection(List.of(
+                notification(Invalidation.event(3L).encode(bus.nodeId)),
+                notification(Invalidation.review(5L, 9L).encode("altro-nodo")))));
+        bus.start();
+
+        assertEquals(Invalidation.review(5L, 9L), received.poll(2, TimeUnit.SECONDS));
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(true, bus.stats().get("connected"));
+    }
+
+    @Test
+    void reconnectAsksListenersToDropEverything() throws Exception {
+        Connection lost = connection(List.of());
+        when(lost.unwrap(PGConnection.class).getNotifications(anyInt())).thenThrow(new SQLException("connessione chiusa"));
+        connections.add(lost);
+        connections.add(connection(List.of(notification(Invalidation.event(4L).encode("altro-nodo")))));
+        bus.start();
+
+        assertEquals(Invalidation.ALL, received.poll(2, TimeUnit.SECONDS));
+        assertEquals(Invalidation.event(4L), received.poll(2, TimeUnit.SECONDS));
+        assertEquals(1L, bus.stats().get("reconnects"));
+    }
+
+    // Connessione che restituisce le notifiche date alla prima lettura, poi niente
+    private static Connection connection(List<PGNotification> notifications) throws SQLException {
+        Connection connection = mock(Connection.class);
+        PGConnection pg = mock(PGConnection.class);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pg);
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        when(pg.getNotifications(anyInt())).thenReturn(notifications.toArray(PGNotification[]::new)).thenAnswer(invocation -> {
+            Thread.sleep(invocation.<Integer>getArgument(0));
+            return null;
+        });
+        return connection;
+    }
+
+    private static PGNotification notification(String payload) {
+        PGNotification notification = mock(PGNotification.class);
+        when(notification.getParameter()).thenReturn(payload);
+        return notification;
+    }
+}
@@ -0,0 +1,107 @@
+package com.dipartimento.reviewservice.service.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DownstreamGuardTests {
+
+    @Test
+    void opensAfterFailureRateAndRecoversThroughHalfOpen() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(4, 4, 50, 50, 1);
+        DownstreamGuard guard = new DownstreamGuard("booking", breaker, new Bulkhead(10, 0), FallbackPolicy.FAIL_CLOSED);
+
+        guard.call(() -> true);
+        guard.call(() -> true);
+        for (int i = 0; i < 2; i++) {
+            assertThrows(ResourceAccessException.class, () -> guard.call(() -> { throw new ResourceAccessException("timeout"); }));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertThrows(DownstreamUnavailableException.class, () -> guard.call(() -> true));
+
+        Thread.sleep(60);
+        assertTrue(guard.call(() -> true));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void clientErrorsDoNotTripTheBreaker() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 50, 10_000, 1);
+        DownstreamGuard guard = new DownstreamGuard("event", breaker, new Bulkhead(10, 0), FallbackPolicy.SERVE_STALE);
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(HttpClientErrorException.class,
+                    () -> guard.call(() -> { throw new HttpClientErrorException(HttpStatus.NOT_FOUND); }));
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void bulkheadRejectsBeyondMaxConcurrentCalls() {
+        Bulkhead bulkhead = new Bulkhead(1, 0);
+        DownstreamGuard guard = new DownstreamGuard("auth", new CircuitBreaker(10, 10, 50, 1000, 1), bulkhead, FallbackPolicy.FAIL_CLOSED);
+
+        assertThrows(DownstreamUnavailableException.class,
+                () -> guard.call(() -> guard.call(() -> true)));
+        assertEquals(1L, bulkhead.stats().get("rejected"));
+    }
+
+    @Test
+    void errorInHalfOpenProbeReopensTheCircuit() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, 1, 50, 50, 1);
+        Bulkhead bulkhead = new Bulkhead(1, 0);
+        DownstreamGuard guard = new DownstreamGuard("event", breaker, bulkhead, FallbackPolicy.FAIL_CLOSED);
+
+        assertThrows(ResourceAccessException.class, () -> guard.call(() -> { throw new ResourceAccessException("timeout"); }));
+        Thread.sleep(60);
+        assertThrows(StackOverflowError.class, () -> guard.call(() -> { throw new StackOverflowError(); }));
+
+        // La prova fallita con un Error riapre il circuito invece di tenerne occupato il posto
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(0, bulkhead.stats().get("activeCalls"));
+        Thread.sleep(60);
+        assertTrue(guard.call(() -> true));
+    }
+
+    @Test
+    void reactiveCallThatThrowsReleasesItsPermit() {
+        Bulkhead bulkhead = new Bulkhead(1, 0);
+        CircuitBreaker breaker = new CircuitBreaker(1, 1, 50, 10_000, 1);
+        DownstreamGuard guard = new DownstreamGuard("event", breaker, bulkhead, FallbackPolicy.FAIL_CLOSED);
+
+        Mono<Boolean> call = guard.callReactive(() -> { throw new IllegalStateException("richiesta non costruita"); });
+
+        assertThrows(IllegalStateException.class, call::block);
+        assertEquals(0, bulkhead.stats().get("activeCalls"));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void timesCallsByOutcome() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DownstreamGuard guard = new DownstreamGuard("event", new CircuitBreaker(10, 10, 50, 1000, 1), new Bulkhead(1, 0),
+                FallbackPolicy.FAIL_CLOSED, registry);
+
+        guard.call(() -> true);
+        guard.call(() -> true);
+        assertThrows(HttpClientErrorException.class,
+                () -> guard.call(() -> { throw new HttpClientErrorException(HttpStatus.NOT_FOUND); }));
+        assertThrows(ResourceAccessException.class,
+                () -> guard.call(() -> { throw new ResourceAccessException("timeout"); }));
+        assertThrows(DownstreamUnavailableException.class, () -> guard.call(() -> guard.call(() -> true)));
+
+        assertEquals(2, count(registry, "success"));
+        assertEquals(1, count(registry, "client_error"));
+        assertEquals(1, count(registry, "io_error"));
+        assertEquals(1, count(registry, "rejected"));
+    }
+
+    private static long count(SimpleMeterRegistry registry, String outcome) {
+        return registry.get(DownstreamGuard.METRIC).tags("service", "event", "outcome", outcome).timer().count();
+    }
+}
@@ -0,0 +1,258 @@
+package com.dipartimento.reviewservice.support;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Auth, Event e Booking service finti per i test: GET /auth/me (utente dai claims del token, senza verificarlo),
+ * GET /events/{id} e /events/internal/{id}, GET /api/bookings/check e POST /api/bookings/check/batch
+ * (disattivabile, risponde 404), con il conto delle chiamate ricevute e l'header traceparent di ciascuna.
+ * Per i test di carico si può aggiungere a ogni risposta una latenza e una quota di errori 503.
+ */
+public class DownstreamStub implements AutoCloseable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    static {
+        // Senza TCP_NODELAY l'HttpServer del JDK scrive header e corpo in due segmenti e il secondo aspetta
+        // l'ACK ritardato del client: ~40ms per risposta. Letta una volta, al primo HttpServer della JVM
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // eventId -> JSON restituito dall'Event service; "userId:eventId" prenotati sul Booking service
+    private final Map<Long, String> events = new ConcurrentHashMap<>();
+    private final Set<String> bookings = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean batchSupported = true;
+    private volatile long latencyNanos;
+    private volatile double errorRate;
+    private final AtomicInteger authCalls = new AtomicInteger();
+    private final AtomicInteger eventCalls = new AtomicInteger();
+    private final AtomicInteger singleChecks = new AtomicInteger();
+    private final AtomicInteger injectedErrors = new AtomicInteger();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private final List<String> batchTokens = new CopyOnWriteArrayList<>();
+    // path della richiesta -> header traceparent ricevuto (W3C trace context)
+    private final Map<String, String> traceparents = new ConcurrentHashMap<>();
+
+    private DownstreamStub(HttpServer server) {
+        this.server = server;
+    }
+
+    public static DownstreamStub start() {
+        try {
+            DownstreamStub stub = new DownstreamStub(HttpServer.create(new InetSocketAddress("localhost", 0), 0));
+            stub.server.createContext("/auth/me", stub.injecting(stub::currentUser));
+            stub.server.createContext("/events/", stub.injecting(stub::event));
+            stub.server.createContext("/api/bookings/check", stub.injecting(stub::bookingCheck));
+            // Un virtual thread per richiesta: con la latenza simulata le richieste non si mettono in fila
+            stub.server.setExecutor(stub.executor);
+            stub.server.start();
+            return stub;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public void event(long eventId, long organizerId, boolean archived) {
+        events.put(eventId, "{\"id\":" + eventId + ",\"organizerId\":" + organizerId + ",\"archived\":" + archived
+                + ",\"status\":\"" + (archived ? "ARCHIVED" : "ACTIVE") + "\"}");
+    }
+
+    public void book(long userId, long eventId) {
+        bookings.add(userId + ":" + eventId);
+    }
+
+    public void setBatchSupported(boolean batchSupported) {
+        this.batchSupported = batchSupported;
+    }
+
+    /**
+     * Attesa aggiunta a ogni risposta.
+     */
+    public void setLatency(Duration latency) {
+        this.latencyNanos = latency.toNanos();
+    }
+
+    /**
+     * Quota di richieste (0..1) a cui rispondere 503 invece del risultato.
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public int authCalls() {
+        return authCalls.get();
+    }
+
+    public int eventCalls() {
+        return eventCalls.get();
+    }
+
+    public int singleChecks() {
+        return singleChecks.get();
+    }
+
+    /**
+     * Risposte 503 date per setErrorRate, su qualunque servizio.
+     */
+    public int injectedErrors() {
+        return injectedErrors.get();
+    }
+
+    /**
+     * Numero di coppie di ciascuna POST batch ricevuta, in ordine di arrivo.
+     */
+    public List<Integer> batchSizes() {
+        return List.copyOf(batchSizes);
+    }
+
+    /**
+     * Header Authorization di ciascuna POST batch ricevuta, in ordine di arrivo.
+     */
+    public List<String> batchTokens() {
+        return List.copyOf(batchTokens);
+    }
+
+    /**
+     * Header traceparent dell'ultima richiesta ricevuta su path (null se mancava).
+     */
+    public String traceparent(String path) {
+        return traceparents.get(path);
+    }
+
+    public void resetCounters() {
+        authCalls.set(0);
+        eventCalls.set(0);
+        singleChecks.set(0);
+        injectedErrors.set(0);
+        batchSizes.clear();
+        batchTokens.clear();
+        traceparents.clear();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private HttpHandler injecting(HttpHandler handler) {
+        return exchange -> {
+            String traceparent = exchange.getRequestHeaders().getFirst("traceparent");
+            if (traceparent != null) {
+                traceparents.put(exchange.getRequestURI().getPath(), traceparent);
+            }
+            long latency = latencyNanos;
+            if (latency > 0) {
+                try {
+                    Thread.sleep(Duration.ofNanos(latency));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                injectedErrors.incrementAndGet();
+                drain(exchange);
+                respond(exchange, 503, "{}");
+                return;
+            }
+            handler.handle(exchange);
+        };
+    }
+
+    private void currentUser(HttpExchange exchange) throws IOException {
+        authCalls.incrementAndGet();
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        String[] jwt = authorization != null ? authorization.substring("Bearer ".length()).split("\\.") : new String[0];
+        if (jwt.length < 2) {
+            respond(exchange, 401, "{}");
+            return;
+        }
+        Map<String, Object> claims = JSON.readValue(Base64.getUrlDecoder().decode(jwt[1]), new TypeReference<>() {});
+        respond(exchange, 200, JSON.writeValueAsString(Map.of("id", claims.get("userId"), "username", claims.get("sub"),
+                "role", claims.get("role"))));
+    }
+
+    private void event(HttpExchange exchange) throws IOException {
+        eventCalls.incrementAndGet();
+        String path = exchange.getRequestURI().getPath();
+        String event = events.get(Long.parseLong(path.substring(path.lastIndexOf('/') + 1)));
+        respond(exchange, event != null ? 200 : 404, event != null ? event : "{}");
+    }
+
+    private void bookingCheck(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.equals("/api/bookings/check/batch")) {
+            if (!batchSupported) {
+                drain(exchange);
+                respond(exchange, 404, "{}");
+                return;
+            }
+            List<Map<String, Long>> pairs;
+            try (InputStream body = exchange.getRequestBody()) {
+                pairs = JSON.readValue(body, new TypeReference<>() {});
+            }
+            batchSizes.add(pairs.size());
+            batchTokens.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            List<Map<String, Object>> checks = pairs.stream()
+                    .map(pair -> Map.<String, Object>of("userId", pair.get("userId"), "eventId", pair.get("eventId"),
+                            "booked", bookings.contains(pair.get("userId") + ":" + pair.get("eventId"))))
+                    .toList();
+            respond(exchange, 200, JSON.writeValueAsString(checks));
+            return;
+        }
+
+        singleChecks.incrementAndGet();
+        Map<String, String> query = new HashMap<>();
+        for (String pair : exchange.getRequestURI().getQuery().split("&")) {
+            String[] kv = pair.split("=", 2);
+            query.put(kv[0], kv[1]);
+        }
+        respond(exchange, 200, String.valueOf(bookings.contains(query.get("userId") + ":" + query.get("eventId"))));
+    }
+
+    private static void drain(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            body.readAllBytes();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
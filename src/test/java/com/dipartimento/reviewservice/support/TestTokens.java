@@ -0,0 +1,40 @@
+package com.dipartimento.reviewservice.support;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import java.security.Key;
+import java.util.Date;
+
+/**
+ * JWT firmati come quelli dello User service, per test e benchmark.
+ */
+public final class TestTokens {
+
+    // Lo stesso segreto di JwtUtil e dello User service
+    public static final Key KEY = Keys.hmacShaKeyFor("erygihpoihviurghnferghrvieuvhnoutigrjg".getBytes());
+
+    private TestTokens() {
+    }
+
+    /**
+     * Header Authorization per l'utente userId ("utente" + userId) con il ruolo dato, valido un'ora.
+     */
+    public static String bearer(long userId, String role) {
+        return "Bearer " + token(userId, role);
+    }
+
+    public static String token(long userId, String role) {
+        return token("utente" + userId, userId, role, new Date(System.currentTimeMillis() + 3_600_000));
+    }
+
+    public static String token(String subject, long userId, String role, Date expiration) {
+        return Jwts.builder()
+                .setSubject(subject)
+                .claim("userId", userId)
+                .claim("role", role)
+                .setExpiration(expiration)
+                .signWith(KEY)
+                .compact();
+    }
+}